@@ -24,13 +24,36 @@ package pascal.taie.analysis.dataflow.analysis;
 
 import pascal.taie.analysis.MethodAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.FactCodec;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.dataflow.fact.ResultCache;
+import pascal.taie.analysis.dataflow.solver.DemandDrivenSolver;
+import pascal.taie.analysis.dataflow.solver.FusedSolver;
 import pascal.taie.analysis.dataflow.solver.Solver;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.cfg.Edge;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Base class for intraprocedural data-flow analyses.
+ * <p>
+ * The analysis manager runs a method analysis on the methods in scope
+ * in parallel, and all the methods share the same analysis instance.
+ * Thus, the states of analyzing a method, e.g., the facts and the
+ * work lists, must be created for each {@link #analyze(IR)} call
+ * instead of being kept in the fields of the analysis or its solver.
+ *
+ * @param <Node> type of CFG nodes
+ * @param <Fact> type of data-flow facts
+ */
 public abstract class AbstractDataflowAnalysis<Node, Fact>
         extends MethodAnalysis
         implements DataflowAnalysis<Node, Fact> {
@@ -39,13 +62,171 @@ public abstract class AbstractDataflowAnalysis<Node, Fact>
 
     protected AbstractDataflowAnalysis(AnalysisConfig config) {
         super(config);
-        solver = Solver.makeSolver(this);
+        solver = makeSolver(this);
+    }
+
+    /**
+     * @return kind of the solver specified by option "solver",
+     * or null if the option is not given.
+     */
+    protected String getSolverKind() {
+        return getOptions().getString("solver");
+    }
+
+    /**
+     * Creates a solver of the kind specified by option "solver" for given
+     * analysis. If option "solver-stats" is enabled, the solver records
+     * its statistics under the ID of this analysis.
+     *
+     * @see pascal.taie.analysis.dataflow.solver.SolverStatistics
+     */
+    protected Solver<Node, Fact> makeSolver(DataflowAnalysis<Node, Fact> analysis) {
+        return getOptions().getBooleanOrDefault("solver-stats", false)
+                ? Solver.makeMonitoredSolver(analysis, getSolverKind(), getId())
+                : Solver.makeSolver(analysis, getSolverKind());
+    }
+
+    /**
+     * @return true if option "in-facts-only" is enabled, i.e., the results
+     * of this analysis only retain the facts flowing into the transfer
+     * functions, and recompute the other facts on demand.
+     */
+    protected boolean isInFactsOnly() {
+        return getOptions().getBooleanOrDefault("in-facts-only", false);
+    }
+
+    /**
+     * @return the codec of the facts of this analysis, which enables
+     * option "cache", or null if the facts of this analysis cannot
+     * be cached.
+     * @see ResultCache
+     */
+    @Nullable
+    protected FactCodec<Fact> getFactCodec() {
+        return null;
     }
 
     @Override
     public DataflowResult<Node, Fact> analyze(IR ir) {
         CFG<Node> cfg = ir.getResult(CFGBuilder.ID);
-        return solver.solve(cfg);
+        DataflowResult<Node, Fact> result = isCached(cfg)
+                ? analyzeCached(cfg) : solve(cfg);
+        if (isInFactsOnly()) {
+            retainInFactsOnly(result, cfg);
+        }
+        return result;
+    }
+
+    private DataflowResult<Node, Fact> solve(CFG<Node> cfg) {
+        DataflowAnalysis<Node, Fact> analysis = getAnalysisFor(cfg);
+        return (analysis == this ? solver : makeSolver(analysis)).solve(cfg);
+    }
+
+    /**
+     * @return true if option "cache" is enabled and the result of given CFG
+     * can be cached, i.e., the CFG is a CFG of statements of a method.
+     */
+    private boolean isCached(CFG<Node> cfg) {
+        return getOptions().getBooleanOrDefault("cache", false)
+                && getFactCodec() != null
+                && cfg.getEntry() instanceof Stmt
+                && cfg.getMethod() != null;
+    }
+
+    /**
+     * Looks up the result of given CFG in the {@link ResultCache} of this
+     * analysis, and solves the CFG and caches the result if it is absent.
+     */
+    @SuppressWarnings("unchecked")
+    private DataflowResult<Node, Fact> analyzeCached(CFG<Node> cfg) {
+        CFG<Stmt> stmtCFG = (CFG<Stmt>) cfg;
+        FactCodec<Fact> codec = getFactCodec();
+        ResultCache cache = ResultCache.get(getId(), getOptions());
+        ResultCache.Key key = cache.keyOf(stmtCFG);
+        DataflowResult<Stmt, Fact> result = cache.getResult(
+                key, stmtCFG, codec, () -> newInitialFact(cfg));
+        if (result == null) {
+            result = (DataflowResult<Stmt, Fact>) solve(cfg);
+            cache.putResult(key, stmtCFG, result, codec);
+        }
+        return (DataflowResult<Node, Fact>) result;
+    }
+
+    /**
+     * Returns a result of this analysis on given IR, which computes the facts
+     * of a node only when they are queried, by solving the part of the CFG
+     * that can influence the node (see {@link DemandDrivenSolver}).
+     * The result is cached in the IR, so that the facts computed for
+     * previous queries are reused by the subsequent ones.
+     */
+    public NodeResult<Node, Fact> analyzeOnDemand(IR ir) {
+        return ir.getResult(getId() + "/demand", () -> {
+            CFG<Node> cfg = ir.getResult(CFGBuilder.ID);
+            return new DemandDrivenSolver<>(getAnalysisFor(cfg), cfg);
+        });
+    }
+
+    /**
+     * Updates given result of this analysis after the CFG, on which the
+     * result was computed, is edited (see {@link Solver#update}).
+     *
+     * @param cfg          the edited CFG
+     * @param result       the result to be updated in place
+     * @param addedEdges   the edges added to the CFG
+     * @param removedEdges the edges removed from the CFG
+     */
+    public void update(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                       Collection<? extends Edge<Node>> addedEdges,
+                       Collection<? extends Edge<Node>> removedEdges) {
+        makeSolver(getAnalysisFor(cfg)).update(cfg, result, addedEdges, removedEdges);
+    }
+
+    /**
+     * Solves given analyses on the CFG of given IR in a single traversal
+     * of the CFG (see {@link FusedSolver}). The analyses must be of
+     * the same direction, and the solver is the default one.
+     *
+     * @return the results of the analyses, in the same order as the analyses.
+     */
+    public static <Node> List<DataflowResult<Node, ?>> analyzeFused(
+            IR ir, List<? extends AbstractDataflowAnalysis<Node, ?>> analyses) {
+        CFG<Node> cfg = ir.getResult(CFGBuilder.ID);
+        List<DataflowAnalysis<Node, ?>> solved = new ArrayList<>(analyses.size());
+        for (AbstractDataflowAnalysis<Node, ?> analysis : analyses) {
+            solved.add(analysis.getAnalysisFor(cfg));
+        }
+        return new FusedSolver<>(solved, null).solve(cfg);
+    }
+
+    /**
+     * @return the analysis which is solved on given CFG. By default, it is
+     * this analysis itself; subclasses may specialize it for the CFG,
+     * e.g., with transfer functions precomputed for the nodes.
+     */
+    protected DataflowAnalysis<Node, Fact> getAnalysisFor(CFG<Node> cfg) {
+        return this;
+    }
+
+    /**
+     * Switches given result to in-facts-only mode, where the discarded facts
+     * are recomputed by the transfer function of this analysis.
+     *
+     * @see DataflowResult#retainInFactsOnly
+     */
+    protected void retainInFactsOnly(DataflowResult<Node, Fact> result, CFG<Node> cfg) {
+        if (isForward()) {
+            result.retainInFactsOnly(true, cfg.getEntry(), (node, in) -> {
+                Fact out = newInitialFact(cfg);
+                transferNode(node, in, out);
+                return out;
+            });
+        } else {
+            result.retainInFactsOnly(false, cfg.getExit(), (node, out) -> {
+                Fact in = newInitialFact(cfg);
+                transferNode(node, in, out);
+                return in;
+            });
+        }
     }
 
     /**
@@ -0,0 +1,170 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.Indexable;
+
+/**
+ * Template for gen/kill (a.k.a. bit-vector) data-flow analyses, whose
+ * transfer functions are of the form {@code f(x) = gen ∪ (x - kill)}.
+ * <p>
+ * For each CFG, the gen and kill sets of every statement are computed
+ * once before solving, and the transfer function is then applied in place,
+ * i.e., it does not allocate new facts nor re-derive the gen/kill sets
+ * from the statements on every visit.
+ *
+ * @param <E> type of elements in data-flow facts
+ */
+public abstract class GenKillAnalysis<E extends Indexable>
+        extends AbstractDataflowAnalysis<Stmt, SetFact<E>> {
+
+    protected GenKillAnalysis(AnalysisConfig config) {
+        super(config);
+    }
+
+    /**
+     * @return the analysis using the gen and kill sets precomputed for given CFG.
+     */
+    @Override
+    protected DataflowAnalysis<Stmt, SetFact<E>> getAnalysisFor(CFG<Stmt> cfg) {
+        return new Transfer(cfg);
+    }
+
+    /**
+     * Computes the gen and kill sets of given statement.
+     *
+     * @param gen  the gen set of {@code stmt}, which is initially empty
+     * @param kill the kill set of {@code stmt}, which is initially empty
+     */
+    protected abstract void computeGenKill(Stmt stmt, SetFact<E> gen, SetFact<E> kill);
+
+    /**
+     * Transfers {@code stmt} by computing its gen and kill sets on the fly.
+     * This is only used when the analysis is driven by other clients than
+     * {@link #analyze(IR)} and {@link #analyzeOnDemand(IR)}, which use
+     * the precomputed gen and kill sets.
+     */
+    @Override
+    public boolean transferNode(Stmt stmt, SetFact<E> in, SetFact<E> out) {
+        SetFact<E> gen = newInitialFact();
+        SetFact<E> kill = newInitialFact();
+        computeGenKill(stmt, gen, kill);
+        return transfer(gen, kill, in, out);
+    }
+
+    private boolean transfer(SetFact<E> gen, SetFact<E> kill,
+                             SetFact<E> in, SetFact<E> out) {
+        return isForward() ?
+                out.setGenKill(gen, kill, in) :
+                in.setGenKill(gen, kill, out);
+    }
+
+    /**
+     * The analysis that is solved on a specific CFG. It uses the gen and
+     * kill sets precomputed for the CFG, and delegates other operations
+     * to the enclosing analysis.
+     */
+    private class Transfer implements DataflowAnalysis<Stmt, SetFact<E>> {
+
+        /**
+         * Gen sets of the statements, indexed by {@link Stmt#getIndex()}.
+         */
+        private final SetFact<E>[] gens;
+
+        /**
+         * Kill sets of the statements, indexed by {@link Stmt#getIndex()}.
+         */
+        private final SetFact<E>[] kills;
+
+        @SuppressWarnings("unchecked")
+        private Transfer(CFG<Stmt> cfg) {
+            int size = 0;
+            for (Stmt stmt : cfg) {
+                size = Math.max(size, stmt.getIndex() + 1);
+            }
+            gens = (SetFact<E>[]) new SetFact<?>[size];
+            kills = (SetFact<E>[]) new SetFact<?>[size];
+            // empty gen/kill sets are shared to save memory
+            SetFact<E> empty = newInitialFact(cfg);
+            for (Stmt stmt : cfg) {
+                SetFact<E> gen = newInitialFact(cfg);
+                SetFact<E> kill = newInitialFact(cfg);
+                computeGenKill(stmt, gen, kill);
+                gens[stmt.getIndex()] = gen.isEmpty() ? empty : gen;
+                kills[stmt.getIndex()] = kill.isEmpty() ? empty : kill;
+            }
+        }
+
+        @Override
+        public boolean isForward() {
+            return GenKillAnalysis.this.isForward();
+        }
+
+        @Override
+        public SetFact<E> newBoundaryFact(CFG<Stmt> cfg) {
+            return GenKillAnalysis.this.newBoundaryFact(cfg);
+        }
+
+        @Override
+        public SetFact<E> newInitialFact() {
+            return GenKillAnalysis.this.newInitialFact();
+        }
+
+        @Override
+        public SetFact<E> newInitialFact(CFG<Stmt> cfg) {
+            return GenKillAnalysis.this.newInitialFact(cfg);
+        }
+
+        @Override
+        public void meetInto(SetFact<E> fact, SetFact<E> target) {
+            GenKillAnalysis.this.meetInto(fact, target);
+        }
+
+        @Override
+        public void widenInto(Stmt stmt, SetFact<E> fact, SetFact<E> target) {
+            GenKillAnalysis.this.widenInto(stmt, fact, target);
+        }
+
+        @Override
+        public boolean transferNode(Stmt stmt, SetFact<E> in, SetFact<E> out) {
+            int index = stmt.getIndex();
+            return transfer(gens[index], kills[index], in, out);
+        }
+
+        @Override
+        public boolean needTransferEdge(Edge<Stmt> edge) {
+            return GenKillAnalysis.this.needTransferEdge(edge);
+        }
+
+        @Override
+        public SetFact<E> transferEdge(Edge<Stmt> edge, SetFact<E> nodeFact) {
+            return GenKillAnalysis.this.transferEdge(edge, nodeFact);
+        }
+    }
+}
@@ -22,25 +22,50 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
+import pascal.taie.analysis.dataflow.fact.BitSetFact;
+import pascal.taie.analysis.dataflow.fact.FactCodec;
 import pascal.taie.analysis.dataflow.fact.SetFact;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.config.AnalysisConfig;
-import pascal.taie.ir.exp.LValue;
-import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Stmt;
 
-import java.util.List;
-import java.util.Optional;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * Implementation of classic live variable analysis.
  */
-public class LiveVariableAnalysis extends
-        AbstractDataflowAnalysis<Stmt, SetFact<Var>> {
+public class LiveVariableAnalysis extends GenKillAnalysis<Var> {
 
     public static final String ID = "livevar";
 
+    /**
+     * Encodes each fact as the number of its variables,
+     * followed by the indexes of the variables.
+     */
+    private static final FactCodec<SetFact<Var>> CODEC = new FactCodec<>() {
+
+        @Override
+        public void write(SetFact<Var> fact, DataOutput out) throws IOException {
+            int[] indexes = fact.stream().mapToInt(Var::getIndex).toArray();
+            FactCodec.writeVarInt(out, indexes.length);
+            for (int index : indexes) {
+                FactCodec.writeVarInt(out, index);
+            }
+        }
+
+        @Override
+        public void read(ByteBuffer in, IR ir, SetFact<Var> fact) {
+            int size = FactCodec.readVarInt(in);
+            for (int i = 0; i < size; ++i) {
+                fact.add(ir.getVar(FactCodec.readVarInt(in)));
+            }
+        }
+    };
+
     public LiveVariableAnalysis(AnalysisConfig config) {
         super(config);
     }
@@ -52,14 +77,23 @@ public class LiveVariableAnalysis extends
 
     @Override
     public SetFact<Var> newBoundaryFact(CFG<Stmt> cfg) {
-        // TODO - finish me
-        return new SetFact<Var>();
+        return newInitialFact(cfg);
     }
 
     @Override
     public SetFact<Var> newInitialFact() {
-        // TODO - finish me
-        return new SetFact<Var>();
+        return new SetFact<>();
+    }
+
+    @Override
+    public SetFact<Var> newInitialFact(CFG<Stmt> cfg) {
+        IR ir = cfg.getIR();
+        return new BitSetFact<>(ir::getVar, ir.getVars().size());
+    }
+
+    @Override
+    protected FactCodec<SetFact<Var>> getFactCodec() {
+        return CODEC;
     }
 
     @Override
@@ -69,26 +103,16 @@ public class LiveVariableAnalysis extends
     }
 
     @Override
-    public boolean transferNode(Stmt stmt, SetFact<Var> in, SetFact<Var> out) {
-        // TODO - finish me
-        List<RValue> used=stmt.getUses();
-        SetFact<Var> tmp=new SetFact<>();
-        tmp.set(out);
-        Optional<LValue> def=stmt.getDef();
-        def.ifPresent(lValue -> tmp.remove((Var) lValue));
-        // 判断是否能够转为Var类
-        used.forEach(used1->{
-            if(used1 instanceof Var){
-                tmp.add((Var)used1);
+    protected void computeGenKill(Stmt stmt, SetFact<Var> gen, SetFact<Var> kill) {
+        stmt.getDef().ifPresent(def -> {
+            if (def instanceof Var var) {
+                kill.add(var);
+            }
+        });
+        stmt.getUses().forEach(use -> {
+            if (use instanceof Var var) {
+                gen.add(var);
             }
-            
         });
-
-        if(in.equals(tmp)) {
-            return true;
-        }else{
-            in.set(tmp);
-        }
-        return false;
     }
 }
@@ -22,20 +22,69 @@
 
 package pascal.taie.analysis.dataflow.fact;
 
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
 /**
  * An object which manages the data-flow facts associated with nodes.
+ * <p>
+ * By default, the facts are kept in maps. For nodes that are densely
+ * indexed, e.g., the statements of a method, the facts can be kept in
+ * arrays indexed by the nodes instead (see
+ * {@link #DataflowResult(ToIntFunction, int)}), which avoids an entry
+ * object per node.
+ * <p>
+ * Moreover, once the facts are computed, a result can be switched to
+ * in-facts-only mode (see {@link #retainInFactsOnly}), where only the
+ * facts flowing into the transfer functions are kept, and the other ones
+ * are recomputed on demand.
  *
  * @param <Node> type of nodes
  * @param <Fact> type of data-flow facts
  */
 public class DataflowResult<Node, Fact> implements NodeResult<Node, Fact> {
 
-    private final Map<Node, Fact> inFacts = new LinkedHashMap<>();
+    private Facts<Node, Fact> inFacts;
 
-    private final Map<Node, Fact> outFacts = new LinkedHashMap<>();
+    private Facts<Node, Fact> outFacts;
+
+    /**
+     * Creates a result which keeps the facts in maps.
+     */
+    public DataflowResult() {
+        inFacts = new MapFacts<>();
+        outFacts = new MapFacts<>();
+    }
+
+    /**
+     * Creates a result which keeps the facts in arrays.
+     *
+     * @param indexer  maps each node to a non-negative index, which must be
+     *                 unique among the nodes managed by this result,
+     *                 e.g., {@code Stmt::getIndex} for the nodes of a CFG.
+     * @param capacity the expected number of nodes, i.e., (max index + 1).
+     *                 This is only a hint, and the arrays grow if necessary.
+     */
+    public DataflowResult(ToIntFunction<? super Node> indexer, int capacity) {
+        inFacts = new ArrayFacts<>(indexer, capacity);
+        outFacts = new ArrayFacts<>(indexer, capacity);
+    }
+
+    /**
+     * Creates a read-only result whose facts are computed on demand by
+     * the given functions, e.g., from facts kept at a coarser granularity
+     * than the nodes. The functions should return null for the nodes
+     * which are not managed by this result.
+     */
+    public DataflowResult(Function<? super Node, ? extends Fact> inFacts,
+                          Function<? super Node, ? extends Fact> outFacts) {
+        this.inFacts = new ComputedFacts<>(inFacts);
+        this.outFacts = new ComputedFacts<>(outFacts);
+    }
 
     /**
      * @return the flowing-in fact of given node.
@@ -66,4 +115,144 @@ public class DataflowResult<Node, Fact> implements NodeResult<Node, Fact> {
     public void setOutFact(Node node, Fact fact) {
         outFacts.put(node, fact);
     }
+
+    /**
+     * Switches this result to in-facts-only mode, which roughly halves the
+     * memory retained by this result. Here "in facts" are the facts flowing
+     * into the transfer functions w.r.t. the direction of the analysis,
+     * i.e., IN facts for forward analyses, and OUT facts for backward ones.
+     * The other facts are discarded and recomputed by {@code transfer}
+     * every time they are queried, except the one of the boundary node,
+     * which is retained as is.
+     * <p>
+     * This should be called after the facts are computed, as the
+     * recomputed facts cannot be updated in place.
+     *
+     * @param forward  whether the analysis is forward
+     * @param boundary the entry (exit) node in forward (backward) analysis
+     * @param transfer computes the fact flowing out of the transfer function
+     *                 of a node from the fact flowing into it
+     */
+    public void retainInFactsOnly(boolean forward, Node boundary,
+                                  BiFunction<Node, Fact, Fact> transfer) {
+        if (forward) {
+            outFacts = new TransferredFacts<>(inFacts, boundary,
+                    outFacts.get(boundary), transfer);
+        } else {
+            inFacts = new TransferredFacts<>(outFacts, boundary,
+                    inFacts.get(boundary), transfer);
+        }
+    }
+
+    /**
+     * Storage of the facts of one side (i.e., IN or OUT) of the nodes.
+     */
+    private interface Facts<Node, Fact> {
+
+        Fact get(Node node);
+
+        void put(Node node, Fact fact);
+    }
+
+    private static class MapFacts<Node, Fact> implements Facts<Node, Fact> {
+
+        private final Map<Node, Fact> facts = new LinkedHashMap<>();
+
+        @Override
+        public Fact get(Node node) {
+            return facts.get(node);
+        }
+
+        @Override
+        public void put(Node node, Fact fact) {
+            facts.put(node, fact);
+        }
+    }
+
+    private static class ArrayFacts<Node, Fact> implements Facts<Node, Fact> {
+
+        private final ToIntFunction<? super Node> indexer;
+
+        private Object[] facts;
+
+        private ArrayFacts(ToIntFunction<? super Node> indexer, int capacity) {
+            this.indexer = indexer;
+            this.facts = new Object[capacity];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Fact get(Node node) {
+            int index = indexer.applyAsInt(node);
+            return index < facts.length ? (Fact) facts[index] : null;
+        }
+
+        @Override
+        public void put(Node node, Fact fact) {
+            int index = indexer.applyAsInt(node);
+            if (index >= facts.length) {
+                facts = Arrays.copyOf(facts, Math.max(2 * facts.length, index + 1));
+            }
+            facts[index] = fact;
+        }
+    }
+
+    /**
+     * Facts which are not stored, but recomputed from the facts of
+     * the other side of the nodes on demand.
+     */
+    private static class TransferredFacts<Node, Fact> implements Facts<Node, Fact> {
+
+        private final Facts<Node, Fact> sources;
+
+        private final Node boundary;
+
+        private final Fact boundaryFact;
+
+        private final BiFunction<Node, Fact, Fact> transfer;
+
+        private TransferredFacts(Facts<Node, Fact> sources, Node boundary,
+                                 Fact boundaryFact,
+                                 BiFunction<Node, Fact, Fact> transfer) {
+            this.sources = sources;
+            this.boundary = boundary;
+            this.boundaryFact = boundaryFact;
+            this.transfer = transfer;
+        }
+
+        @Override
+        public Fact get(Node node) {
+            if (node.equals(boundary)) {
+                return boundaryFact;
+            }
+            Fact source = sources.get(node);
+            return source == null ? null : transfer.apply(node, source);
+        }
+
+        @Override
+        public void put(Node node, Fact fact) {
+            throw new UnsupportedOperationException(
+                    "Facts cannot be updated in in-facts-only mode");
+        }
+    }
+
+    private static class ComputedFacts<Node, Fact> implements Facts<Node, Fact> {
+
+        private final Function<? super Node, ? extends Fact> compute;
+
+        private ComputedFacts(Function<? super Node, ? extends Fact> compute) {
+            this.compute = compute;
+        }
+
+        @Override
+        public Fact get(Node node) {
+            return compute.apply(node);
+        }
+
+        @Override
+        public void put(Node node, Fact fact) {
+            throw new UnsupportedOperationException(
+                    "Facts of a computed result cannot be updated");
+        }
+    }
 }
@@ -0,0 +1,295 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.util.Indexable;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+
+/**
+ * A {@link java.util.Set} of {@link Indexable} elements backed by
+ * a bit vector, where each element is represented by the bit at its index.
+ * The elements must be {@link Indexable}, which is guaranteed
+ * by {@link BitSetFact}.
+ * <p>
+ * Bulk operations between two such sets work word by word,
+ * other operations fall back to the element-wise implementations
+ * of {@link AbstractSet}.
+ *
+ * @param <E> type of elements
+ */
+class IndexBitSet<E> extends AbstractSet<E> {
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+
+    /**
+     * Maps indexes back to the elements, which is used for iteration.
+     */
+    private final IntFunction<E> elements;
+
+    private long[] words;
+
+    IndexBitSet(IntFunction<E> elements, int capacity) {
+        this.elements = elements;
+        this.words = new long[wordIndex(capacity - 1) + 1];
+    }
+
+    private IndexBitSet(IntFunction<E> elements, long[] words) {
+        this.elements = elements;
+        this.words = words;
+    }
+
+    private static int wordIndex(int bitIndex) {
+        return bitIndex >> ADDRESS_BITS_PER_WORD;
+    }
+
+    private void ensureCapacity(int wordsRequired) {
+        if (words.length < wordsRequired) {
+            words = Arrays.copyOf(words, Math.max(2 * words.length, wordsRequired));
+        }
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (o instanceof Indexable e) {
+            int index = e.getIndex();
+            int wordIndex = wordIndex(index);
+            return wordIndex < words.length &&
+                    (words[wordIndex] & (1L << index)) != 0 &&
+                    elements.apply(index).equals(o);
+        }
+        return false;
+    }
+
+    @Override
+    public boolean add(E e) {
+        int index = ((Indexable) e).getIndex();
+        int wordIndex = wordIndex(index);
+        ensureCapacity(wordIndex + 1);
+        long old = words[wordIndex];
+        words[wordIndex] = old | (1L << index);
+        return words[wordIndex] != old;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (contains(o)) {
+            int index = ((Indexable) o).getIndex();
+            words[wordIndex(index)] &= ~(1L << index);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        if (c instanceof IndexBitSet<?> other) {
+            ensureCapacity(other.words.length);
+            boolean changed = false;
+            for (int i = 0; i < other.words.length; ++i) {
+                long old = words[i];
+                words[i] = old | other.words[i];
+                changed |= words[i] != old;
+            }
+            return changed;
+        }
+        return super.addAll(c);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        if (c instanceof IndexBitSet<?> other) {
+            boolean changed = false;
+            for (int i = 0; i < words.length; ++i) {
+                long old = words[i];
+                words[i] = i < other.words.length ? old & other.words[i] : 0L;
+                changed |= words[i] != old;
+            }
+            return changed;
+        }
+        return super.retainAll(c);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        if (c instanceof IndexBitSet<?> other) {
+            boolean changed = false;
+            int n = Math.min(words.length, other.words.length);
+            for (int i = 0; i < n; ++i) {
+                long old = words[i];
+                words[i] = old & ~other.words[i];
+                changed |= words[i] != old;
+            }
+            return changed;
+        }
+        return super.removeAll(c);
+    }
+
+    /**
+     * Sets the content of this set to {@code gen ∪ (other - kill)}.
+     *
+     * @return true if this set changed as a result of the call, otherwise false.
+     */
+    boolean setGenKill(IndexBitSet<E> gen, IndexBitSet<E> kill, IndexBitSet<E> other) {
+        ensureCapacity(Math.max(gen.words.length, other.words.length));
+        boolean changed = false;
+        for (int i = 0; i < words.length; ++i) {
+            long old = words[i];
+            words[i] = gen.word(i) | (other.word(i) & ~kill.word(i));
+            changed |= words[i] != old;
+        }
+        return changed;
+    }
+
+    /**
+     * @return the i-th word of this set, or 0 if it is beyond the capacity.
+     */
+    private long word(int i) {
+        return i < words.length ? words[i] : 0L;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(words, 0L);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (long word : words) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<>() {
+
+            private int next = nextSetBit(0);
+
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public E next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = nextSetBit(next + 1);
+                return elements.apply(last);
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                words[wordIndex(last)] &= ~(1L << last);
+                last = -1;
+            }
+        };
+    }
+
+    /**
+     * @return index of the first set bit that occurs on or after
+     * the given index, or -1 if there is no such bit.
+     */
+    private int nextSetBit(int fromIndex) {
+        int wordIndex = wordIndex(fromIndex);
+        if (wordIndex >= words.length) {
+            return -1;
+        }
+        long word = words[wordIndex] & (-1L << fromIndex);
+        while (true) {
+            if (word != 0) {
+                return (wordIndex << ADDRESS_BITS_PER_WORD) +
+                        Long.numberOfTrailingZeros(word);
+            }
+            if (++wordIndex == words.length) {
+                return -1;
+            }
+            word = words[wordIndex];
+        }
+    }
+
+    /**
+     * @return a copy of this set which shares the same element mapping.
+     */
+    IndexBitSet<E> copy() {
+        return new IndexBitSet<>(elements, words.clone());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o instanceof IndexBitSet<?> other) {
+            long[] longer = words, shorter = other.words;
+            if (longer.length < shorter.length) {
+                longer = other.words;
+                shorter = words;
+            }
+            for (int i = 0; i < shorter.length; ++i) {
+                if (longer[i] != shorter[i]) {
+                    return false;
+                }
+            }
+            for (int i = shorter.length; i < longer.length; ++i) {
+                if (longer[i] != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        // must be consistent with the hash code of other Set implementations,
+        // as equals() may compare this set with them
+        return super.hashCode();
+    }
+}
@@ -0,0 +1,377 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.Configs;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.util.ExitHooks;
+import pascal.taie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Disk-backed cache of the results of an analysis, which is kept across
+ * runs, so that the methods analyzed in previous runs are not solved again.
+ * <p>
+ * Each result is keyed by the signature of its method, and is valid only
+ * if the fingerprint of the CFG (including the statements, the edges and
+ * the variables) and the options of the analysis is unchanged.
+ * The results of each analysis under each options are kept in a binary
+ * file in directory {@value #DIR} of the output directory, named after
+ * the ID of the analysis and the hash of the options. The file is
+ * memory-mapped when the cache is loaded, so that only the results being
+ * looked up are read.
+ * The file has the following layout (in big-endian):
+ * <pre>
+ * int magic, int version, int entries
+ * entries * (long method, long fingerprint[2], int offset, int length)
+ * data
+ * </pre>
+ * where the offsets are relative to the start of the data. When the JVM
+ * exits, the caches updated in the run are written back to their files,
+ * with the stale entries replaced by the new ones.
+ */
+public final class ResultCache {
+
+    private static final Logger logger = LogManager.getLogger(ResultCache.class);
+
+    private static final String DIR = "result-cache";
+
+    private static final int MAGIC = 0x54414943; // "TAIC"
+
+    private static final int VERSION = 1;
+
+    /**
+     * Size of the header, i.e., magic, version and number of entries.
+     */
+    private static final int HEADER_SIZE = 12;
+
+    /**
+     * Size of an entry in the index.
+     */
+    private static final int ENTRY_SIZE = 32;
+
+    /**
+     * Map from analysis ID and options to the cache.
+     */
+    private static final Map<String, ResultCache> caches = ExitHooks.newMap(
+            "result-cache", map -> map.values().forEach(ResultCache::save));
+
+    private final File file;
+
+    /**
+     * Options of the analysis, which are part of the fingerprints.
+     */
+    private final String options;
+
+    /**
+     * Map from the key of method to the entry of its result.
+     */
+    private final Map<Long, Entry> entries = Maps.newConcurrentMap();
+
+    private volatile boolean changed;
+
+    private ResultCache(String id, String options) {
+        this(new File(new File(Configs.getOutputDir(), DIR),
+                id + "-" + hashOf(options) + ".bin"), options);
+    }
+
+    /**
+     * Creates a cache kept in given file, which is not written back
+     * at exit unless {@link #save()} is called.
+     */
+    ResultCache(File file, String options) {
+        this.file = file;
+        this.options = options;
+        if (file.exists()) {
+            load();
+        }
+    }
+
+    /**
+     * @return the cache of the analysis of given ID and options.
+     */
+    public static ResultCache get(String id, AnalysisOptions options) {
+        return get(id, options.toString());
+    }
+
+    /**
+     * @return the cache of the analysis of given ID, whose results depend
+     * on given options.
+     */
+    public static ResultCache get(String id, String options) {
+        return caches.computeIfAbsent(id + '\n' + options,
+                unused -> new ResultCache(id, options));
+    }
+
+    /**
+     * @return the hexadecimal hash of given options, which distinguishes
+     * the files of the caches of the same analysis.
+     */
+    private static String hashOf(String options) {
+        return Long.toHexString(toLong(newDigest().digest(
+                options.getBytes(StandardCharsets.UTF_8)), 0));
+    }
+
+    /**
+     * @return the key of the result of given CFG, which must be
+     * the CFG of a method.
+     */
+    public Key keyOf(CFG<Stmt> cfg) {
+        MessageDigest md = newDigest();
+        long method = toLong(md.digest(cfg.getMethod().getSignature()
+                .getBytes(StandardCharsets.UTF_8)), 0);
+        StringBuilder content = new StringBuilder(options).append('\n');
+        for (Var var : cfg.getIR().getVars()) {
+            content.append(var.getIndex()).append(' ').append(var.getName())
+                    .append(':').append(var.getType()).append('\n');
+        }
+        for (Stmt stmt : sortedNodes(cfg)) {
+            content.append(stmt.getIndex()).append(' ').append(stmt).append(" ->");
+            for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)
+                    .stream()
+                    .sorted(Comparator.comparingInt(e -> e.getTarget().getIndex()))
+                    .toList()) {
+                content.append(' ').append(edge.getKind())
+                        .append(':').append(edge.getTarget().getIndex());
+                if (edge.isSwitchCase()) {
+                    content.append(':').append(edge.getCaseValue());
+                }
+                if (edge.isExceptional()) {
+                    edge.getExceptions()
+                            .stream()
+                            .map(ClassType::getName)
+                            .sorted()
+                            .forEach(e -> content.append(':').append(e));
+                }
+            }
+            content.append('\n');
+        }
+        byte[] fingerprint = md.digest(content.toString()
+                .getBytes(StandardCharsets.UTF_8));
+        return new Key(method, toLong(fingerprint, 0), toLong(fingerprint, 8));
+    }
+
+    /**
+     * @return the cached data of given key, or null if the data is absent
+     * or stale. The data is a read-only buffer positioned at its start.
+     */
+    @Nullable
+    public ByteBuffer get(Key key) {
+        Entry entry = entries.get(key.method());
+        if (entry == null || entry.fingerprint0() != key.fingerprint0()
+                || entry.fingerprint1() != key.fingerprint1()) {
+            return null;
+        }
+        return entry.data().duplicate();
+    }
+
+    /**
+     * Caches the data of given key, which replaces the stale data
+     * of the same method, if any.
+     */
+    public void put(Key key, byte[] data) {
+        entries.put(key.method(), new Entry(key.fingerprint0(),
+                key.fingerprint1(), ByteBuffer.wrap(data).asReadOnlyBuffer()));
+        changed = true;
+    }
+
+    /**
+     * @return the cached result of given CFG, or null if the result
+     * is absent or stale.
+     * @param newFact creates the facts where the cached facts are read to
+     */
+    @Nullable
+    public <Fact> DataflowResult<Stmt, Fact> getResult(
+            Key key, CFG<Stmt> cfg, FactCodec<Fact> codec, Supplier<Fact> newFact) {
+        ByteBuffer data = get(key);
+        if (data == null) {
+            return null;
+        }
+        try {
+            DataflowResult<Stmt, Fact> result = new DataflowResult<>(
+                    Stmt::getIndex, cfg.getNumberOfNodes());
+            for (Stmt stmt : sortedNodes(cfg)) {
+                Fact in = newFact.get();
+                codec.read(data, cfg.getIR(), in);
+                result.setInFact(stmt, in);
+                Fact out = newFact.get();
+                codec.read(data, cfg.getIR(), out);
+                result.setOutFact(stmt, out);
+            }
+            return result;
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read cached result of {}", cfg.getMethod(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Caches the result of given CFG.
+     */
+    public <Fact> void putResult(Key key, CFG<Stmt> cfg,
+                                 DataflowResult<Stmt, Fact> result,
+                                 FactCodec<Fact> codec) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (Stmt stmt : sortedNodes(cfg)) {
+                codec.write(result.getInFact(stmt), out);
+                codec.write(result.getOutFact(stmt), out);
+            }
+        } catch (IOException e) {
+            // writing to a byte array never fails
+            throw new RuntimeException(e);
+        }
+        put(key, bytes.toByteArray());
+    }
+
+    private static List<Stmt> sortedNodes(CFG<Stmt> cfg) {
+        return cfg.getNodes()
+                .stream()
+                .sorted(Comparator.comparingInt(Stmt::getIndex))
+                .toList();
+    }
+
+    private void load() {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                logger.warn("Ignored result cache {} of unknown format", file);
+                return;
+            }
+            int size = buffer.getInt();
+            int dataStart = HEADER_SIZE + size * ENTRY_SIZE;
+            for (int i = 0; i < size; ++i) {
+                long method = buffer.getLong();
+                long fingerprint0 = buffer.getLong();
+                long fingerprint1 = buffer.getLong();
+                int offset = buffer.getInt();
+                int length = buffer.getInt();
+                ByteBuffer data = buffer.slice(dataStart + offset, length)
+                        .asReadOnlyBuffer();
+                entries.put(method, new Entry(fingerprint0, fingerprint1, data));
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to load result cache {}", file, e);
+            entries.clear();
+        }
+    }
+
+    void save() {
+        if (!changed) {
+            return;
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                // take a snapshot, so that the index and the data
+                // are written in the same order
+                List<Map.Entry<Long, Entry>> snapshot =
+                        new ArrayList<>(entries.entrySet());
+                out.writeInt(snapshot.size());
+                int offset = 0;
+                for (Map.Entry<Long, Entry> e : snapshot) {
+                    Entry entry = e.getValue();
+                    int length = entry.data().remaining();
+                    out.writeLong(e.getKey());
+                    out.writeLong(entry.fingerprint0());
+                    out.writeLong(entry.fingerprint1());
+                    out.writeInt(offset);
+                    out.writeInt(length);
+                    offset = Math.addExact(offset, length);
+                }
+                byte[] buffer = new byte[8192];
+                for (Map.Entry<Long, Entry> e : snapshot) {
+                    ByteBuffer data = e.getValue().data().duplicate();
+                    while (data.hasRemaining()) {
+                        int length = Math.min(buffer.length, data.remaining());
+                        data.get(buffer, 0, length);
+                        out.write(buffer, 0, length);
+                    }
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | ArithmeticException e) {
+            logger.warn("Failed to write result cache {}", file, e);
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static long toLong(byte[] bytes, int from) {
+        return ByteBuffer.wrap(bytes, from, Long.BYTES).getLong();
+    }
+
+    /**
+     * Key of a cached result.
+     *
+     * @param method       hash of the signature of the method
+     * @param fingerprint0 the high bits of the fingerprint
+     * @param fingerprint1 the low bits of the fingerprint
+     */
+    public record Key(long method, long fingerprint0, long fingerprint1) {
+    }
+
+    private record Entry(long fingerprint0, long fingerprint1, ByteBuffer data) {
+    }
+}
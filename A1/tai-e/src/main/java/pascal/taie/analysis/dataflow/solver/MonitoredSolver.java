@@ -0,0 +1,202 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+
+/**
+ * Solver which collects the {@link SolverStatistics} of another solver.
+ * For each CFG, it solves the CFG by a new solver of the given kind,
+ * which is created for an analysis that counts the calls to the delegated
+ * analysis, and counts the operations on its work list by overriding
+ * {@link #countPushes} and {@link #countPop}. Then it records the counters
+ * of the CFG.
+ *
+ * @param <Node> type of CFG nodes
+ * @param <Fact> type of data-flow facts
+ */
+class MonitoredSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    @Nullable
+    private final String kind;
+
+    private final SolverStatistics statistics;
+
+    /**
+     * @param kind       kind of the solver which solves the CFGs, same as
+     *                   {@link #makeSolver(DataflowAnalysis, String)}
+     * @param statistics the statistics where the counters are recorded
+     */
+    MonitoredSolver(DataflowAnalysis<Node, Fact> analysis, @Nullable String kind,
+                    SolverStatistics statistics) {
+        super(analysis);
+        this.kind = kind;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public DataflowResult<Node, Fact> solve(CFG<Node> cfg) {
+        CountingAnalysis<Node, Fact> counting = new CountingAnalysis<>(analysis);
+        long start = System.nanoTime();
+        DataflowResult<Node, Fact> result = newSolver(counting).solve(cfg);
+        long time = System.nanoTime() - start;
+        statistics.record(String.valueOf(cfg.getMethod()), cfg.getNumberOfNodes(),
+                counting.transfers, counting.meets, counting.pushes, counting.pops,
+                counting.passes, counting.peakFactSize, time);
+        return result;
+    }
+
+    /**
+     * @return a new solver of {@link #kind} for given analysis, which counts
+     * the operations on its work list in the analysis.
+     */
+    private Solver<Node, Fact> newSolver(CountingAnalysis<Node, Fact> counting) {
+        if (kind == null || kind.equals("worklist")) {
+            return new WorkListSolver<>(counting) {
+                @Override
+                protected void countPushes(int count) {
+                    counting.pushes += count;
+                }
+
+                @Override
+                protected void countPop() {
+                    ++counting.pops;
+                }
+            };
+        } else if (kind.equals("block")) {
+            return new BlockSolver<>(counting) {
+                @Override
+                protected void countPushes(int count) {
+                    counting.pushes += count;
+                }
+
+                @Override
+                protected void countPop() {
+                    ++counting.pops;
+                }
+            };
+        } else {
+            // the other solvers have no work list
+            return makeSolver(counting, kind);
+        }
+    }
+
+    /**
+     * Analysis which delegates all operations to another analysis,
+     * and counts the operations of solving a CFG. Each instance is used
+     * to solve a single CFG, thus the counters need no synchronization.
+     */
+    static class CountingAnalysis<Node, Fact> implements DataflowAnalysis<Node, Fact> {
+
+        private final DataflowAnalysis<Node, Fact> analysis;
+
+        /**
+         * Number of transfers of each node.
+         */
+        private final Map<Node, Integer> visits = Maps.newMap();
+
+        private long transfers;
+
+        private long meets;
+
+        private long pushes;
+
+        private long pops;
+
+        private int passes;
+
+        private int peakFactSize;
+
+        private CountingAnalysis(DataflowAnalysis<Node, Fact> analysis) {
+            this.analysis = analysis;
+        }
+
+        @Override
+        public boolean isForward() {
+            return analysis.isForward();
+        }
+
+        @Override
+        public Fact newBoundaryFact(CFG<Node> cfg) {
+            return analysis.newBoundaryFact(cfg);
+        }
+
+        @Override
+        public Fact newInitialFact() {
+            return analysis.newInitialFact();
+        }
+
+        @Override
+        public Fact newInitialFact(CFG<Node> cfg) {
+            return analysis.newInitialFact(cfg);
+        }
+
+        @Override
+        public void meetInto(Fact fact, Fact target) {
+            ++meets;
+            analysis.meetInto(fact, target);
+        }
+
+        @Override
+        public void widenInto(Node node, Fact fact, Fact target) {
+            ++meets;
+            analysis.widenInto(node, fact, target);
+        }
+
+        @Override
+        public boolean transferNode(Node node, Fact in, Fact out) {
+            ++transfers;
+            passes = Math.max(passes, visits.merge(node, 1, Integer::sum));
+            boolean changed = analysis.transferNode(node, in, out);
+            peakFactSize = Math.max(peakFactSize,
+                    sizeOf(analysis.isForward() ? out : in));
+            return changed;
+        }
+
+        /**
+         * @return the number of elements in given fact if it is
+         * a {@link SetFact}, otherwise 0.
+         */
+        private static int sizeOf(Object fact) {
+            return fact instanceof SetFact<?> setFact ? setFact.size() : 0;
+        }
+
+        @Override
+        public boolean needTransferEdge(Edge<Node> edge) {
+            return analysis.needTransferEdge(edge);
+        }
+
+        @Override
+        public Fact transferEdge(Edge<Node> edge, Fact nodeFact) {
+            return analysis.transferEdge(edge, nodeFact);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Weak topological ordering (WTO) of a CFG, computed by Bourdoncle's
+ * algorithm (F. Bourdoncle, "Efficient chaotic iteration strategies
+ * with widenings", FMPA 1993).
+ * <p>
+ * A WTO is a hierarchical ordering of the nodes, where each element is
+ * either a single node or a component, i.e., a loop consisting of a head
+ * and a body which is again a list of elements. The heads of components
+ * are the places where the iteration has to stabilize, and thus are
+ * suitable widening points.
+ * <p>
+ * The algorithm is implemented with explicit stacks, as the depth of
+ * the depth-first traversal can be as large as the size of the method.
+ *
+ * @param <Node> type of CFG nodes
+ */
+class WTO<Node> {
+
+    /**
+     * Element of a WTO, i.e., either a {@link Vertex} or a {@link Component}.
+     */
+    sealed interface Element<Node> permits Vertex, Component {
+    }
+
+    record Vertex<Node>(Node node) implements Element<Node> {
+    }
+
+    record Component<Node>(Node head, List<Element<Node>> body)
+            implements Element<Node> {
+    }
+
+    private final List<Element<Node>> elements;
+
+    private final Set<Node> heads = Sets.newHybridSet();
+
+    /**
+     * Depth-first numbers of the nodes. Absence means the node is
+     * not visited yet, and {@link Integer#MAX_VALUE} means the node
+     * has been placed in the WTO.
+     */
+    private final Map<Node, Integer> dfn;
+
+    private final Deque<Node> stack = new ArrayDeque<>();
+
+    private final Function<Node, ? extends Iterable<Node>> succs;
+
+    private int num = 0;
+
+    /**
+     * Computes the WTO of given CFG.
+     *
+     * @param forward if true, the WTO follows the control flow starting
+     *                from the entry; otherwise, it follows the reversed
+     *                control flow starting from the exit.
+     */
+    WTO(CFG<Node> cfg, boolean forward) {
+        succs = forward ? cfg::getSuccsOf : cfg::getPredsOf;
+        dfn = Maps.newMap(cfg.getNumberOfNodes());
+        Deque<Element<Node>> partition = new ArrayDeque<>();
+        visit(forward ? cfg.getEntry() : cfg.getExit(), partition);
+        // nodes unreachable from the root also need to be ordered;
+        // they are placed before the reachable ones, which is valid
+        // as the reachable nodes cannot reach them
+        for (Node node : cfg) {
+            if (!dfn.containsKey(node)) {
+                visit(node, partition);
+            }
+        }
+        elements = List.copyOf(partition);
+    }
+
+    /**
+     * @return the top-level elements of this WTO.
+     */
+    List<Element<Node>> getElements() {
+        return elements;
+    }
+
+    /**
+     * @return the heads of all components in this WTO.
+     */
+    Set<Node> getHeads() {
+        return Collections.unmodifiableSet(heads);
+    }
+
+    /**
+     * @return true if given node is the head of a component.
+     */
+    boolean isHead(Node node) {
+        return heads.contains(node);
+    }
+
+    /**
+     * A frame of Bourdoncle's (recursive) procedures visit() and component().
+     */
+    private final class Frame {
+
+        private final Node node;
+
+        private final Iterator<Node> succIter;
+
+        /**
+         * The partition where the result of this frame is added.
+         */
+        private final Deque<Element<Node>> partition;
+
+        /**
+         * The body being built, if this frame is a component() frame;
+         * null if this frame is a visit() frame.
+         */
+        private final Deque<Element<Node>> body;
+
+        private int head;
+
+        private boolean loop = false;
+
+        private Frame(Node node, Deque<Element<Node>> partition,
+                      Deque<Element<Node>> body) {
+            this.node = node;
+            this.succIter = succs.apply(node).iterator();
+            this.partition = partition;
+            this.body = body;
+        }
+
+        private boolean isComponent() {
+            return body != null;
+        }
+    }
+
+    private final Deque<Frame> frames = new ArrayDeque<>();
+
+    private void visit(Node root, Deque<Element<Node>> partition) {
+        pushVisit(root, partition);
+        while (!frames.isEmpty()) {
+            Frame frame = frames.peek();
+            if (frame.succIter.hasNext()) {
+                Node succ = frame.succIter.next();
+                Integer succNum = dfn.get(succ);
+                if (succNum == null) {
+                    pushVisit(succ, frame.isComponent() ? frame.body : frame.partition);
+                } else if (!frame.isComponent() && succNum <= frame.head) {
+                    frame.head = succNum;
+                    frame.loop = true;
+                }
+            } else {
+                frames.pop();
+                if (frame.isComponent()) {
+                    frame.partition.addFirst(new Component<>(
+                            frame.node, List.copyOf(frame.body)));
+                } else {
+                    finishVisit(frame);
+                }
+            }
+        }
+    }
+
+    private void pushVisit(Node node, Deque<Element<Node>> partition) {
+        stack.push(node);
+        dfn.put(node, ++num);
+        Frame frame = new Frame(node, partition, null);
+        frame.head = num;
+        frames.push(frame);
+    }
+
+    private void finishVisit(Frame frame) {
+        Node node = frame.node;
+        // return frame.head to the caller
+        Frame caller = frames.peek();
+        if (caller != null && !caller.isComponent() && frame.head <= caller.head) {
+            caller.head = frame.head;
+            caller.loop = true;
+        }
+        if (frame.head == dfn.get(node)) {
+            dfn.put(node, Integer.MAX_VALUE);
+            Node element = stack.pop();
+            if (frame.loop) {
+                while (element != node) {
+                    dfn.remove(element);
+                    element = stack.pop();
+                }
+                heads.add(node);
+                // call component(node), whose result is added to
+                // frame.partition when the component frame finishes
+                frames.push(new Frame(node, frame.partition, new ArrayDeque<>()));
+            } else {
+                frame.partition.addFirst(new Vertex<>(node));
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+
+import java.util.List;
+
+/**
+ * Solver which follows the weak topological ordering (WTO) of the CFG,
+ * i.e., Bourdoncle's recursive iteration strategy: the elements of the WTO
+ * are visited in order, and each component (loop) is iterated until its
+ * head stabilizes before moving to the subsequent elements. Thus, the facts
+ * are not re-propagated through code outside the loops that are not
+ * stable yet.
+ * <p>
+ * The heads of the components are the widening points, where the facts
+ * flowing into the heads are combined with the existing facts via
+ * {@link DataflowAnalysis#widenInto} instead of
+ * {@link DataflowAnalysis#meetInto}.
+ *
+ * @param <Node> type of CFG nodes
+ * @param <Fact> type of data-flow facts
+ */
+class WTOSolver<Node, Fact> extends NodeSolver<Node, Fact> {
+
+    WTOSolver(DataflowAnalysis<Node, Fact> analysis) {
+        super(analysis);
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        WTO<Node> wto = new WTO<>(cfg, true);
+        solveElements(wto.getElements(), wto, cfg, result, true);
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        WTO<Node> wto = new WTO<>(cfg, false);
+        solveElements(wto.getElements(), wto, cfg, result, false);
+    }
+
+    private void solveElements(List<WTO.Element<Node>> elements, WTO<Node> wto,
+                               CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                               boolean forward) {
+        for (WTO.Element<Node> element : elements) {
+            if (element instanceof WTO.Vertex<Node> vertex) {
+                update(vertex.node(), wto, cfg, result, forward);
+            } else if (element instanceof WTO.Component<Node> component) {
+                // the body must be solved at least once, even if the head
+                // does not change, as the body has not been visited yet
+                boolean first = true;
+                while (update(component.head(), wto, cfg, result, forward)
+                        || first) {
+                    first = false;
+                    solveElements(component.body(), wto, cfg, result, forward);
+                }
+            }
+        }
+    }
+
+    /**
+     * Combines the facts flowing into the node, and then transfers the node.
+     *
+     * @return true if the transfer changed the fact flowing out of the node.
+     */
+    private boolean update(Node node, WTO<Node> wto, CFG<Node> cfg,
+                           DataflowResult<Node, Fact> result, boolean forward) {
+        if (forward ? cfg.isEntry(node) : cfg.isExit(node)) {
+            // the boundary fact is fixed
+            return false;
+        }
+        Fact in = result.getInFact(node);
+        Fact out = result.getOutFact(node);
+        Fact target = forward ? in : out;
+        if (wto.isHead(node)) {
+            Fact incoming = analysis.newInitialFact(cfg);
+            for (Node pred : forward ? cfg.getPredsOf(node) : cfg.getSuccsOf(node)) {
+                analysis.meetInto(getFlowingFact(pred, result, forward), incoming);
+            }
+            analysis.widenInto(node, incoming, target);
+        } else {
+            for (Node pred : forward ? cfg.getPredsOf(node) : cfg.getSuccsOf(node)) {
+                analysis.meetInto(getFlowingFact(pred, result, forward), target);
+            }
+        }
+        return analysis.transferNode(node, in, out);
+    }
+
+    /**
+     * @return the fact flowing from given node to the next node
+     * in the direction of the analysis.
+     */
+    private Fact getFlowingFact(Node node, DataflowResult<Node, Fact> result,
+                                boolean forward) {
+        return forward ? result.getOutFact(node) : result.getInFact(node);
+    }
+}
@@ -24,15 +24,17 @@ package pascal.taie.analysis.dataflow.solver;
 
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
-import pascal.taie.analysis.dataflow.fact.SetFact;
 import pascal.taie.analysis.graph.cfg.CFG;
-import pascal.taie.ir.exp.Var;
+import pascal.taie.util.collection.SetQueue;
 
-import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
 
-class IterativeSolver<Node, Fact> extends Solver<Node, Fact> {
+class WorkListSolver<Node, Fact> extends NodeSolver<Node, Fact> {
 
-    public IterativeSolver(DataflowAnalysis<Node, Fact> analysis) {
+    WorkListSolver(DataflowAnalysis<Node, Fact> analysis) {
         super(analysis);
     }
 
@@ -43,25 +45,32 @@ class IterativeSolver<Node, Fact> extends Solver<Node, Fact> {
 
     @Override
     protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        // TODO - finish me
-        boolean flag=true;
-        do{
-            flag=true;
-            for(Node node : cfg.getNodes()){
-                if(!cfg.isExit(node)){
-                    Fact BNode = result.getOutFact(node);
-                    for(Node predNode : cfg.getSuccsOf(node)){
-                        // outB
-                        Fact SNode = result.getInFact(predNode);
-                        analysis.meetInto(SNode,BNode);
-
-                        // inB
-                        if(!analysis.transferNode(node,result.getInFact(node),BNode)){
-                            flag=false;
-                        }
+        // seed the work list in reverse order, so that most nodes
+        // are visited after their successors in the first pass
+        List<Node> nodes = new ArrayList<>(cfg.getNodes());
+        Collections.reverse(nodes);
+        Queue<Node> workList = new SetQueue<>();
+        for (Node node : nodes) {
+            if (!cfg.isExit(node)) {
+                workList.add(node);
+            }
+        }
+        countPushes(workList.size());
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            countPop();
+            Fact out = result.getOutFact(node);
+            for (Node succ : cfg.getSuccsOf(node)) {
+                analysis.meetInto(result.getInFact(succ), out);
+            }
+            if (analysis.transferNode(node, result.getInFact(node), out)) {
+                for (Node pred : cfg.getPredsOf(node)) {
+                    if (!cfg.isExit(pred)) {
+                        workList.add(pred);
+                        countPushes(1);
                     }
                 }
             }
-        }while(!flag);
+        }
     }
 }
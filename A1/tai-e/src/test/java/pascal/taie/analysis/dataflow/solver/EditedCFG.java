@@ -0,0 +1,120 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * View of a CFG with some of its edges removed.
+ */
+class EditedCFG implements CFG<Stmt> {
+
+    private final CFG<Stmt> cfg;
+
+    private final Set<Edge<Stmt>> removedEdges;
+
+    EditedCFG(CFG<Stmt> cfg, Set<Edge<Stmt>> removedEdges) {
+        this.cfg = cfg;
+        this.removedEdges = removedEdges;
+    }
+
+    @Override
+    public IR getIR() {
+        return cfg.getIR();
+    }
+
+    @Override
+    public JMethod getMethod() {
+        return cfg.getMethod();
+    }
+
+    @Override
+    public Stmt getEntry() {
+        return cfg.getEntry();
+    }
+
+    @Override
+    public Stmt getExit() {
+        return cfg.getExit();
+    }
+
+    @Override
+    public boolean isEntry(Stmt node) {
+        return cfg.isEntry(node);
+    }
+
+    @Override
+    public boolean isExit(Stmt node) {
+        return cfg.isExit(node);
+    }
+
+    @Override
+    public Set<Edge<Stmt>> getInEdgesOf(Stmt node) {
+        return cfg.getInEdgesOf(node).stream()
+                .filter(edge -> !removedEdges.contains(edge))
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public Set<Edge<Stmt>> getOutEdgesOf(Stmt node) {
+        return cfg.getOutEdgesOf(node).stream()
+                .filter(edge -> !removedEdges.contains(edge))
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public boolean hasNode(Stmt node) {
+        return cfg.hasNode(node);
+    }
+
+    @Override
+    public boolean hasEdge(Stmt source, Stmt target) {
+        return getSuccsOf(source).contains(target);
+    }
+
+    @Override
+    public Set<Stmt> getPredsOf(Stmt node) {
+        return getInEdgesOf(node).stream()
+                .map(Edge::getSource)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public Set<Stmt> getSuccsOf(Stmt node) {
+        return getOutEdgesOf(node).stream()
+                .map(Edge::getTarget)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public Set<Stmt> getNodes() {
+        return cfg.getNodes();
+    }
+}
@@ -23,7 +23,11 @@
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
 import pascal.taie.analysis.dataflow.analysis.AbstractDataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.FactCodec;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.*;
@@ -33,17 +37,98 @@ import pascal.taie.language.type.PrimitiveType;
 import pascal.taie.language.type.Type;
 import pascal.taie.util.AnalysisException;
 
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.function.Function;
 
 public class ConstantPropagation extends
         AbstractDataflowAnalysis<Stmt, CPFact> {
 
     public static final String ID = "constprop";
 
+    /**
+     * Encodes each fact as the number of its entries, followed by the
+     * entries, i.e., the index of the variable, the kind of the value,
+     * and the constant (in zigzag encoding) if the value is a constant.
+     */
+    private static final FactCodec<CPFact> CODEC = new FactCodec<>() {
+
+        private static final int NAC = 0;
+
+        private static final int CONSTANT = 1;
+
+        private static final int UNDEF = 2;
+
+        @Override
+        public void write(CPFact fact, DataOutput out) throws IOException {
+            FactCodec.writeVarInt(out, fact.keySet().size());
+            for (Var var : fact.keySet()) {
+                Value value = fact.get(var);
+                FactCodec.writeVarInt(out, var.getIndex());
+                if (value.isConstant()) {
+                    int c = value.getConstant();
+                    out.writeByte(CONSTANT);
+                    FactCodec.writeVarInt(out, (c << 1) ^ (c >> 31));
+                } else {
+                    out.writeByte(value.isNAC() ? NAC : UNDEF);
+                }
+            }
+        }
+
+        @Override
+        public void read(ByteBuffer in, IR ir, CPFact fact) {
+            int size = FactCodec.readVarInt(in);
+            for (int i = 0; i < size; ++i) {
+                Var var = ir.getVar(FactCodec.readVarInt(in));
+                Value value = switch (in.get()) {
+                    case NAC -> Value.getNAC();
+                    case CONSTANT -> {
+                        int c = FactCodec.readVarInt(in);
+                        yield Value.makeConstant((c >>> 1) ^ -(c & 1));
+                    }
+                    case UNDEF -> Value.getUndef();
+                    default -> throw new IllegalStateException("Unknown value kind");
+                };
+                fact.update(var, value);
+            }
+        }
+    };
+
     public ConstantPropagation(AnalysisConfig config) {
         super(config);
     }
 
+    /**
+     * If option "sparse" is enabled, solves the analysis by
+     * {@link SparseConstantPropagation}, otherwise by the data-flow solver.
+     * The sparse results compute all facts on demand, thus option
+     * "in-facts-only" does not apply to them.
+     */
+    @Override
+    public DataflowResult<Stmt, CPFact> analyze(IR ir) {
+        if (!getOptions().getBooleanOrDefault("sparse", false)) {
+            return super.analyze(ir);
+        }
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        return new SparseConstantPropagation(this, cfg).solve();
+    }
+
+    @Override
+    protected FactCodec<CPFact> getFactCodec() {
+        return CODEC;
+    }
+
+    /**
+     * @return the analysis whose transfer functions are precompiled
+     * for the statements of given CFG.
+     */
+    @Override
+    protected DataflowAnalysis<Stmt, CPFact> getAnalysisFor(CFG<Stmt> cfg) {
+        return new TransferPlans(this, cfg);
+    }
+
     @Override
     public boolean isForward() {
         return true;
@@ -98,20 +183,13 @@ public class ConstantPropagation extends
     }
 
     @Override
-    public void meetInto(CPFact fact, CPFact target) {
-        // TODO - finish me
-
-        for(Var var:fact.keySet()){
-            if(target.get(var)!=null){
-                // 目标里面有这一个
-                target.update(var,meetValue(fact.get(var),target.get(var)));
-                //System.out.println("meetInto:"+meetValue(fact.get(var),target.get(var)));
-            }else{
-                // 目标没有这一个
-                target.update(var,fact.get(var));
-            }
-        }
+    public CPFact newInitialFact(CFG<Stmt> cfg) {
+        return new CPFact(cfg.getIR().getVars().size());
+    }
 
+    @Override
+    public void meetInto(CPFact fact, CPFact target) {
+        target.meet(fact);
     }
 
     /**
@@ -138,34 +216,23 @@ public class ConstantPropagation extends
 
     @Override
     public boolean transferNode(Stmt stmt, CPFact in, CPFact out) {
-        // TODO - finish me
-
-        if(stmt instanceof DefinitionStmt){
-            boolean flag = false;
-            DefinitionStmt defStmt = (DefinitionStmt) stmt;
-            LValue lValue = defStmt.getLValue();
-            if(lValue==null){
-                return flag;
-            }
-            Value gen=evaluate(defStmt.getRValue(), in);
-            if(!out.get((Var)lValue).equals(gen)){
-                // 这里判断out是否发生改变了
-                flag=true;
+        Var lhs = null;
+        Value gen = null;
+        if (stmt instanceof DefinitionStmt<?, ?> defStmt &&
+                defStmt.getLValue() instanceof Var var) {
+            lhs = var;
+            gen = evaluate(defStmt.getRValue(), in);
+        }
+        boolean changed = false;
+        for (Var var : in.keySet()) {
+            if (!var.equals(lhs)) {
+                changed |= out.update(var, in.get(var));
             }
-            in.forEach(out::update);
-            in.forEach((var,value)->{
-                if(!value.isNAC()){
-                    out.update(var,value);
-                }
-            });
-            out.update((Var)lValue,gen);
-            return flag;
-        }else{
-            in.forEach(out::update);
-            return false;
         }
-
-
+        if (lhs != null) {
+            changed |= out.update(lhs, gen);
+        }
+        return changed;
     }
 
     /**
@@ -194,9 +261,21 @@ public class ConstantPropagation extends
      * @return the resulting {@link Value}
      */
     public static Value evaluate(Exp exp, CPFact in) {
+        return evaluate(exp, in::get);
+    }
+
+    /**
+     * Evaluates the {@link Value} of given expression, where the values
+     * of the variables are given by a function instead of a fact.
+     *
+     * @param exp    the expression to be evaluated
+     * @param values maps each variable to its value before the expression
+     * @return the resulting {@link Value}
+     */
+    static Value evaluate(Exp exp, Function<Var, Value> values) {
         // TODO - finish
         if(exp instanceof Var){
-            return in.get((Var) exp);
+            return values.apply((Var) exp);
         }
         if (exp instanceof IntLiteral) {
             // 返回一个value
@@ -205,8 +284,8 @@ public class ConstantPropagation extends
         if(exp instanceof BinaryExp){
             Var var1=((BinaryExp)exp).getOperand1();
             Var var2=((BinaryExp)exp).getOperand2();
-            Value value1=in.get(var1);
-            Value value2=in.get(var2);
+            Value value1=values.apply(var1);
+            Value value2=values.apply(var2);
             if(value1.isConstant() && value2.isConstant()){
                 if(!canHoldInt(var1) || !canHoldInt(var2)){
                     return Value.getUndef();
@@ -218,7 +297,7 @@ public class ConstantPropagation extends
                 int t1=value1.getConstant();
                 int t2=value2.getConstant();
                 if(exp instanceof ArithmeticExp){
-                    if(op.toString().equals("/") && t2 ==0){
+                    if((op.toString().equals("/") || op.toString().equals("%")) && t2 ==0){
                         return Value.getUndef();
                     }
                     ans = switch (op.toString()) {
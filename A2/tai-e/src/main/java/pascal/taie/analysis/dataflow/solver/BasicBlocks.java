@@ -0,0 +1,180 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Basic-block view of a CFG. A basic block is a maximal sequence of
+ * nodes n1, ..., nk where each ni (i > 1) has n(i-1) as its only
+ * predecessor, and n(i-1) has ni as its only successor.
+ * The entry and exit nodes always form their own blocks.
+ *
+ * @param <Node> type of CFG nodes
+ */
+class BasicBlocks<Node> {
+
+    static final class Block<Node> {
+
+        private final int id;
+
+        private final List<Node> nodes = new ArrayList<>();
+
+        private final List<Block<Node>> preds = new ArrayList<>();
+
+        private final List<Block<Node>> succs = new ArrayList<>();
+
+        private Block(int id) {
+            this.id = id;
+        }
+
+        /**
+         * @return the index of this block in {@link BasicBlocks#getBlocks()}.
+         */
+        int getId() {
+            return id;
+        }
+
+        List<Node> getNodes() {
+            return Collections.unmodifiableList(nodes);
+        }
+
+        Node getFirst() {
+            return nodes.get(0);
+        }
+
+        Node getLast() {
+            return nodes.get(nodes.size() - 1);
+        }
+
+        List<Block<Node>> getPreds() {
+            return Collections.unmodifiableList(preds);
+        }
+
+        List<Block<Node>> getSuccs() {
+            return Collections.unmodifiableList(succs);
+        }
+    }
+
+    private final CFG<Node> cfg;
+
+    private final List<Block<Node>> blocks = new ArrayList<>();
+
+    private final Map<Node, Block<Node>> blockOf;
+
+    /**
+     * Position of each node in its block.
+     */
+    private final Map<Node, Integer> positions;
+
+    BasicBlocks(CFG<Node> cfg) {
+        this.cfg = cfg;
+        blockOf = Maps.newMap(cfg.getNumberOfNodes());
+        positions = Maps.newMap(cfg.getNumberOfNodes());
+        for (Node node : cfg) {
+            if (isLeader(node)) {
+                buildBlock(node);
+            }
+        }
+        // the nodes on cycles without leaders (which are unreachable)
+        for (Node node : cfg) {
+            if (!blockOf.containsKey(node)) {
+                buildBlock(node);
+            }
+        }
+        for (Block<Node> block : blocks) {
+            for (Node succ : cfg.getSuccsOf(block.getLast())) {
+                Block<Node> succBlock = blockOf.get(succ);
+                if (!block.succs.contains(succBlock)) {
+                    block.succs.add(succBlock);
+                    succBlock.preds.add(block);
+                }
+            }
+        }
+    }
+
+    private boolean isLeader(Node node) {
+        if (cfg.isEntry(node) || cfg.isExit(node)
+                || cfg.getPredsOf(node).size() != 1) {
+            return true;
+        }
+        Node pred = cfg.getPredsOf(node).iterator().next();
+        return pred.equals(node) || cfg.isEntry(pred)
+                || cfg.getSuccsOf(pred).size() != 1;
+    }
+
+    private void buildBlock(Node leader) {
+        Block<Node> block = new Block<>(blocks.size());
+        blocks.add(block);
+        Node node = leader;
+        while (true) {
+            blockOf.put(node, block);
+            positions.put(node, block.nodes.size());
+            block.nodes.add(node);
+            if (cfg.isEntry(node) || cfg.getSuccsOf(node).size() != 1) {
+                break;
+            }
+            Node succ = cfg.getSuccsOf(node).iterator().next();
+            if (blockOf.containsKey(succ) || isLeader(succ)) {
+                break;
+            }
+            node = succ;
+        }
+    }
+
+    /**
+     * @return all blocks of the CFG.
+     */
+    List<Block<Node>> getBlocks() {
+        return Collections.unmodifiableList(blocks);
+    }
+
+    /**
+     * @return the block containing given node, or null if given node
+     * is not in the CFG.
+     */
+    Block<Node> getBlockOf(Node node) {
+        return blockOf.get(node);
+    }
+
+    /**
+     * @return the position of given node in its block.
+     */
+    int getPositionOf(Node node) {
+        return positions.get(node);
+    }
+
+    Block<Node> getEntry() {
+        return blockOf.get(cfg.getEntry());
+    }
+
+    Block<Node> getExit() {
+        return blockOf.get(cfg.getExit());
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.util.collection.SetQueue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Solver which iterates over the basic blocks of the CFG instead of
+ * the single nodes. The transfer function of a block is the composition
+ * of the transfer functions of its nodes, and only the facts flowing
+ * into and out of the blocks are stored.
+ * <p>
+ * The facts of the nodes inside a block are recomputed from the facts
+ * of the block every time they are queried from the result, thus the
+ * result is read-only.
+ *
+ * @param <Node> type of CFG nodes
+ * @param <Fact> type of data-flow facts
+ */
+class BlockSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    BlockSolver(DataflowAnalysis<Node, Fact> analysis) {
+        super(analysis);
+    }
+
+    @Override
+    public DataflowResult<Node, Fact> solve(CFG<Node> cfg) {
+        BasicBlocks<Node> blocks = new BasicBlocks<>(cfg);
+        BlockFacts facts = new BlockFacts(cfg, blocks);
+        if (analysis.isForward()) {
+            solveForward(cfg, blocks, facts);
+        } else {
+            solveBackward(cfg, blocks, facts);
+        }
+        return new DataflowResult<>(facts::getInFact, facts::getOutFact);
+    }
+
+    private void solveForward(CFG<Node> cfg, BasicBlocks<Node> blocks,
+                              BlockFacts facts) {
+        BasicBlocks.Block<Node> entry = blocks.getEntry();
+        facts.outs.set(entry.getId(), analysis.newBoundaryFact(cfg));
+        Queue<BasicBlocks.Block<Node>> workList = new SetQueue<>();
+        for (BasicBlocks.Block<Node> block : blocks.getBlocks()) {
+            if (block != entry) {
+                workList.add(block);
+            }
+        }
+        countPushes(workList.size());
+        while (!workList.isEmpty()) {
+            BasicBlocks.Block<Node> block = workList.poll();
+            countPop();
+            Fact in = facts.ins.get(block.getId());
+            for (BasicBlocks.Block<Node> pred : block.getPreds()) {
+                analysis.meetInto(facts.outs.get(pred.getId()), in);
+            }
+            List<Node> nodes = block.getNodes();
+            Fact fact = facts.transferForward(nodes, in, nodes.size() - 1);
+            if (analysis.transferNode(block.getLast(), fact,
+                    facts.outs.get(block.getId()))) {
+                workList.addAll(block.getSuccs());
+                countPushes(block.getSuccs().size());
+            }
+        }
+    }
+
+    private void solveBackward(CFG<Node> cfg, BasicBlocks<Node> blocks,
+                               BlockFacts facts) {
+        BasicBlocks.Block<Node> exit = blocks.getExit();
+        facts.ins.set(exit.getId(), analysis.newBoundaryFact(cfg));
+        // seed the work list in reverse order, so that most blocks
+        // are visited after their successors in the first pass
+        List<BasicBlocks.Block<Node>> reversed = new ArrayList<>(blocks.getBlocks());
+        Collections.reverse(reversed);
+        Queue<BasicBlocks.Block<Node>> workList = new SetQueue<>();
+        for (BasicBlocks.Block<Node> block : reversed) {
+            if (block != exit) {
+                workList.add(block);
+            }
+        }
+        countPushes(workList.size());
+        while (!workList.isEmpty()) {
+            BasicBlocks.Block<Node> block = workList.poll();
+            countPop();
+            Fact out = facts.outs.get(block.getId());
+            for (BasicBlocks.Block<Node> succ : block.getSuccs()) {
+                analysis.meetInto(facts.ins.get(succ.getId()), out);
+            }
+            Fact fact = facts.transferBackward(block.getNodes(), out, 1);
+            if (analysis.transferNode(block.getFirst(),
+                    facts.ins.get(block.getId()), fact)) {
+                for (BasicBlocks.Block<Node> pred : block.getPreds()) {
+                    if (pred != exit) {
+                        workList.add(pred);
+                        countPushes(1);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The facts flowing into and out of each block, i.e., the IN fact of
+     * its first node and the OUT fact of its last node, and the facts
+     * of the other nodes which are computed on demand.
+     */
+    private class BlockFacts {
+
+        private final CFG<Node> cfg;
+
+        private final BasicBlocks<Node> blocks;
+
+        private final List<Fact> ins;
+
+        private final List<Fact> outs;
+
+        private BlockFacts(CFG<Node> cfg, BasicBlocks<Node> blocks) {
+            this.cfg = cfg;
+            this.blocks = blocks;
+            int size = blocks.getBlocks().size();
+            ins = new ArrayList<>(size);
+            outs = new ArrayList<>(size);
+            for (int i = 0; i < size; ++i) {
+                ins.add(analysis.newInitialFact(cfg));
+                outs.add(analysis.newInitialFact(cfg));
+            }
+        }
+
+        /**
+         * Transfers fact forward through nodes[0 .. end - 1].
+         *
+         * @return the OUT fact of nodes[end - 1], or fact itself if end is 0.
+         */
+        private Fact transferForward(List<Node> nodes, Fact fact, int end) {
+            for (int i = 0; i < end; ++i) {
+                Fact out = analysis.newInitialFact(cfg);
+                analysis.transferNode(nodes.get(i), fact, out);
+                fact = out;
+            }
+            return fact;
+        }
+
+        /**
+         * Transfers fact backward through nodes[size - 1 .. start].
+         *
+         * @return the IN fact of nodes[start], or fact itself
+         * if start is the size of nodes.
+         */
+        private Fact transferBackward(List<Node> nodes, Fact fact, int start) {
+            for (int i = nodes.size() - 1; i >= start; --i) {
+                Fact in = analysis.newInitialFact(cfg);
+                analysis.transferNode(nodes.get(i), in, fact);
+                fact = in;
+            }
+            return fact;
+        }
+
+        private Fact getInFact(Node node) {
+            BasicBlocks.Block<Node> block = blocks.getBlockOf(node);
+            if (block == null) {
+                return null;
+            }
+            int pos = blocks.getPositionOf(node);
+            if (pos == 0) {
+                return ins.get(block.getId());
+            }
+            List<Node> nodes = block.getNodes();
+            return analysis.isForward()
+                    ? transferForward(nodes, ins.get(block.getId()), pos)
+                    : transferBackward(nodes, outs.get(block.getId()), pos);
+        }
+
+        private Fact getOutFact(Node node) {
+            BasicBlocks.Block<Node> block = blocks.getBlockOf(node);
+            if (block == null) {
+                return null;
+            }
+            int pos = blocks.getPositionOf(node);
+            List<Node> nodes = block.getNodes();
+            if (pos == nodes.size() - 1) {
+                return outs.get(block.getId());
+            }
+            return analysis.isForward()
+                    ? transferForward(nodes, ins.get(block.getId()), pos + 1)
+                    : transferBackward(nodes, outs.get(block.getId()), pos + 1);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Solver which solves several analyses of the same direction in a single
+ * traversal of the CFG. The analyses are combined into the product of
+ * their lattices, i.e., the fact of a node is the tuple of the facts of
+ * all analyses, and the meets and transfers of the analyses are performed
+ * one after another when the node is visited. Thus, the CFG and its work
+ * list are traversed once for all analyses, instead of once per analysis.
+ * <p>
+ * A node is visited again if the fact of any analysis changes, hence this
+ * performs more transfers than solving the analyses separately when they
+ * converge at different speeds; the transfers of the converged analyses
+ * are cheap as they do not change the facts.
+ *
+ * @param <Node> type of CFG nodes
+ */
+public class FusedSolver<Node> {
+
+    private final int size;
+
+    private final Solver<Node, Object[]> solver;
+
+    /**
+     * @param analyses the analyses to be solved, which must be of
+     *                 the same direction
+     * @param kind     kind of the solver, same as
+     *                 {@link Solver#makeSolver(DataflowAnalysis, String)}
+     */
+    public FusedSolver(List<? extends DataflowAnalysis<Node, ?>> analyses,
+                       @Nullable String kind) {
+        if (analyses.isEmpty()) {
+            throw new IllegalArgumentException("No analyses to solve");
+        }
+        boolean forward = analyses.get(0).isForward();
+        for (DataflowAnalysis<Node, ?> analysis : analyses) {
+            if (analysis.isForward() != forward) {
+                throw new IllegalArgumentException(
+                        "Cannot fuse forward and backward analyses");
+            }
+        }
+        size = analyses.size();
+        solver = Solver.makeSolver(new ProductAnalysis<>(analyses, forward), kind);
+    }
+
+    /**
+     * Solves the analyses on given CFG.
+     *
+     * @return the results of the analyses, in the same order as the
+     * analyses given to the constructor.
+     */
+    public List<DataflowResult<Node, ?>> solve(CFG<Node> cfg) {
+        DataflowResult<Node, Object[]> result = solver.solve(cfg);
+        List<DataflowResult<Node, ?>> results = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            results.add(project(result, i));
+        }
+        return results;
+    }
+
+    /**
+     * @return the result of the i-th analysis, which is a view of
+     * the result of the product analysis.
+     */
+    private static <Node> DataflowResult<Node, Object> project(
+            DataflowResult<Node, Object[]> result, int i) {
+        return new DataflowResult<>(
+                node -> {
+                    Object[] facts = result.getInFact(node);
+                    return facts != null ? facts[i] : null;
+                },
+                node -> {
+                    Object[] facts = result.getOutFact(node);
+                    return facts != null ? facts[i] : null;
+                });
+    }
+
+    /**
+     * Product of several analyses, whose facts are the arrays of
+     * the facts of the analyses.
+     */
+    private static class ProductAnalysis<Node> implements DataflowAnalysis<Node, Object[]> {
+
+        private final DataflowAnalysis<Node, Object>[] analyses;
+
+        private final boolean forward;
+
+        @SuppressWarnings("unchecked")
+        private ProductAnalysis(List<? extends DataflowAnalysis<Node, ?>> analyses,
+                                boolean forward) {
+            // the facts of each analysis are only passed back to itself,
+            // thus it is safe to erase their types
+            this.analyses = (DataflowAnalysis<Node, Object>[])
+                    analyses.toArray(new DataflowAnalysis<?, ?>[0]);
+            this.forward = forward;
+        }
+
+        @Override
+        public boolean isForward() {
+            return forward;
+        }
+
+        @Override
+        public Object[] newBoundaryFact(CFG<Node> cfg) {
+            Object[] facts = new Object[analyses.length];
+            for (int i = 0; i < analyses.length; ++i) {
+                facts[i] = analyses[i].newBoundaryFact(cfg);
+            }
+            return facts;
+        }
+
+        @Override
+        public Object[] newInitialFact() {
+            Object[] facts = new Object[analyses.length];
+            for (int i = 0; i < analyses.length; ++i) {
+                facts[i] = analyses[i].newInitialFact();
+            }
+            return facts;
+        }
+
+        @Override
+        public Object[] newInitialFact(CFG<Node> cfg) {
+            Object[] facts = new Object[analyses.length];
+            for (int i = 0; i < analyses.length; ++i) {
+                facts[i] = analyses[i].newInitialFact(cfg);
+            }
+            return facts;
+        }
+
+        @Override
+        public void meetInto(Object[] fact, Object[] target) {
+            for (int i = 0; i < analyses.length; ++i) {
+                analyses[i].meetInto(fact[i], target[i]);
+            }
+        }
+
+        @Override
+        public void widenInto(Node node, Object[] fact, Object[] target) {
+            for (int i = 0; i < analyses.length; ++i) {
+                analyses[i].widenInto(node, fact[i], target[i]);
+            }
+        }
+
+        @Override
+        public boolean transferNode(Node node, Object[] in, Object[] out) {
+            boolean changed = false;
+            for (int i = 0; i < analyses.length; ++i) {
+                changed |= analyses[i].transferNode(node, in[i], out[i]);
+            }
+            return changed;
+        }
+
+        @Override
+        public boolean needTransferEdge(Edge<Node> edge) {
+            for (DataflowAnalysis<Node, Object> analysis : analyses) {
+                if (analysis.needTransferEdge(edge)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Object[] transferEdge(Edge<Node> edge, Object[] nodeFact) {
+            Object[] facts = new Object[analyses.length];
+            for (int i = 0; i < analyses.length; ++i) {
+                facts[i] = analyses[i].needTransferEdge(edge)
+                        ? analyses[i].transferEdge(edge, nodeFact[i])
+                        : nodeFact[i];
+            }
+            return facts;
+        }
+    }
+}
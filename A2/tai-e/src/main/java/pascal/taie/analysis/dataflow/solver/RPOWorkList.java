@@ -0,0 +1,139 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Work list of CFG nodes which always polls the node that comes first
+ * in reverse postorder of the CFG. For forward analyses, this means
+ * that a node is processed after all its predecessors except the ones
+ * reaching it via back edges, so that the solving converges in close to
+ * the minimal number of passes.
+ * <p>
+ * The work list is a bitmap over the reverse postorder numbers of
+ * the nodes, thus each node is kept in the work list at most once.
+ *
+ * @param <Node> type of CFG nodes
+ */
+class RPOWorkList<Node> {
+
+    /**
+     * The nodes in reverse postorder.
+     */
+    private final List<Node> nodes;
+
+    /**
+     * Map from each node to its position in {@link #nodes}.
+     */
+    private final Map<Node, Integer> orders;
+
+    private final BitSet queued;
+
+    RPOWorkList(CFG<Node> cfg) {
+        nodes = reversePostOrder(cfg);
+        orders = Maps.newMap(nodes.size());
+        for (int i = 0; i < nodes.size(); ++i) {
+            orders.put(nodes.get(i), i);
+        }
+        queued = new BitSet(nodes.size());
+    }
+
+    /**
+     * @return the nodes of given CFG in reverse postorder of a depth-first
+     * traversal from the entry. Nodes unreachable from the entry
+     * are appended at the end in their original order.
+     */
+    private static <Node> List<Node> reversePostOrder(CFG<Node> cfg) {
+        List<Node> postOrder = new ArrayList<>(cfg.getNumberOfNodes());
+        Set<Node> visited = Sets.newSet(cfg.getNumberOfNodes());
+        // use an explicit stack, as methods can be too large to be
+        // traversed recursively
+        Deque<Node> stack = new ArrayDeque<>();
+        Deque<Iterator<Node>> succs = new ArrayDeque<>();
+        Node entry = cfg.getEntry();
+        visited.add(entry);
+        stack.push(entry);
+        succs.push(cfg.getSuccsOf(entry).iterator());
+        while (!stack.isEmpty()) {
+            Iterator<Node> it = succs.peek();
+            if (it.hasNext()) {
+                Node succ = it.next();
+                if (visited.add(succ)) {
+                    stack.push(succ);
+                    succs.push(cfg.getSuccsOf(succ).iterator());
+                }
+            } else {
+                postOrder.add(stack.pop());
+                succs.pop();
+            }
+        }
+        Collections.reverse(postOrder);
+        for (Node node : cfg) {
+            if (!visited.contains(node)) {
+                postOrder.add(node);
+            }
+        }
+        return postOrder;
+    }
+
+    /**
+     * Adds all nodes of the CFG to this work list.
+     */
+    void addAll() {
+        queued.set(0, nodes.size());
+    }
+
+    /**
+     * Adds a node to this work list. Does nothing if the node
+     * is already in this work list.
+     */
+    void add(Node node) {
+        queued.set(orders.get(node));
+    }
+
+    boolean isEmpty() {
+        return queued.isEmpty();
+    }
+
+    /**
+     * Removes and returns the node which comes first in reverse postorder.
+     */
+    Node poll() {
+        int i = queued.nextSetBit(0);
+        queued.clear(i);
+        return nodes.get(i);
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.config.Configs;
+import pascal.taie.util.ExitHooks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistics of solving the CFGs of a data-flow analysis, aggregated over
+ * all the CFGs solved for the analysis. Besides the totals, the methods
+ * with the most transfers are kept, which are the ones where the solver
+ * spends most of its iterations.
+ * <p>
+ * The statistics are collected by the solvers created by
+ * {@link Solver#makeMonitoredSolver}. When the JVM exits, the statistics
+ * of all analyses are written in JSON to {@value #FILE} in the output
+ * directory.
+ */
+public final class SolverStatistics {
+
+    private static final Logger logger = LogManager.getLogger(SolverStatistics.class);
+
+    private static final String FILE = "solver-stats.json";
+
+    /**
+     * Maximum number of methods kept for each analysis.
+     */
+    private static final int TOP_METHODS = 10;
+
+    /**
+     * Map from analysis ID to the statistics of the analysis.
+     */
+    private static final Map<String, SolverStatistics> statistics =
+            ExitHooks.newMap("solver-stats", unused -> dump());
+
+    private int cfgs;
+
+    private long nodes;
+
+    private long transfers;
+
+    private long meets;
+
+    private long pushes;
+
+    private long pops;
+
+    private int maxPasses;
+
+    private int peakFactSize;
+
+    private long time;
+
+    /**
+     * Methods with the most transfers, where the head has the fewest ones.
+     */
+    private final PriorityQueue<MethodCounters> topMethods =
+            new PriorityQueue<>(Comparator.comparingLong(MethodCounters::transfers));
+
+    private SolverStatistics() {
+    }
+
+    /**
+     * @return the statistics of the analysis of given ID.
+     */
+    static SolverStatistics get(String id) {
+        return statistics.computeIfAbsent(id, unused -> new SolverStatistics());
+    }
+
+    /**
+     * Records the counters of solving a CFG.
+     *
+     * @param method       the method of the CFG
+     * @param nodes        number of nodes in the CFG
+     * @param transfers    number of calls to the node transfer function
+     * @param meets        number of calls to the meet (widen) function
+     * @param pushes       number of nodes added to the work list, including
+     *                     the ones which are already in the work list
+     * @param pops         number of nodes polled from the work list
+     * @param passes       maximum number of transfers of a single node
+     * @param peakFactSize maximum size of the facts produced by the transfers
+     * @param time         wall time of solving the CFG, in nanoseconds
+     */
+    synchronized void record(String method, int nodes, long transfers,
+                             long meets, long pushes, long pops, int passes,
+                             int peakFactSize, long time) {
+        ++cfgs;
+        this.nodes += nodes;
+        this.transfers += transfers;
+        this.meets += meets;
+        this.pushes += pushes;
+        this.pops += pops;
+        this.maxPasses = Math.max(this.maxPasses, passes);
+        this.peakFactSize = Math.max(this.peakFactSize, peakFactSize);
+        this.time += time;
+        topMethods.add(new MethodCounters(method, nodes, transfers, passes, time));
+        if (topMethods.size() > TOP_METHODS) {
+            topMethods.poll();
+        }
+    }
+
+    /**
+     * @return the statistics of all analyses in JSON.
+     */
+    public static String toJson() {
+        return allToJsonNode().toPrettyString();
+    }
+
+    private static ObjectNode allToJsonNode() {
+        ObjectNode json = JsonNodeFactory.instance.objectNode();
+        // sort the analyses by ID, so that the output is stable
+        new TreeMap<>(statistics).forEach((id, stats) ->
+                json.set(id, stats.toJsonNode()));
+        return json;
+    }
+
+    private synchronized ObjectNode toJsonNode() {
+        ObjectNode json = JsonNodeFactory.instance.objectNode()
+                .put("cfgs", cfgs)
+                .put("nodes", nodes)
+                .put("transfers", transfers)
+                .put("meets", meets)
+                .put("pushes", pushes)
+                .put("pops", pops)
+                .put("maxPasses", maxPasses)
+                .put("peakFactSize", peakFactSize)
+                .put("timeMs", toMillis(time));
+        ArrayNode methods = json.putArray("topMethods");
+        topMethods.stream()
+                .sorted(topMethods.comparator().reversed())
+                .forEach(m -> methods.addObject()
+                        .put("method", m.method())
+                        .put("nodes", m.nodes())
+                        .put("transfers", m.transfers())
+                        .put("passes", m.passes())
+                        .put("timeMs", toMillis(m.time())));
+        return json;
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static void dump() {
+        if (statistics.isEmpty()) {
+            return;
+        }
+        File file = new File(Configs.getOutputDir(), FILE);
+        try {
+            new ObjectMapper().writerWithDefaultPrettyPrinter()
+                    .writeValue(file, allToJsonNode());
+        } catch (IOException e) {
+            logger.warn("Failed to write solver statistics to {}", file, e);
+        }
+    }
+
+    private record MethodCounters(String method, int nodes, long transfers,
+                                  int passes, long time) {
+    }
+}
@@ -27,11 +27,7 @@ import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.Queue;
-
-class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
+class WorkListSolver<Node, Fact> extends NodeSolver<Node, Fact> {
 
     WorkListSolver(DataflowAnalysis<Node, Fact> analysis) {
         super(analysis);
@@ -39,24 +35,22 @@ class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
 
     @Override
     protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        // TODO - finish me
-        Queue<Node> worklist = new LinkedList<>();
-        cfg.forEach(worklist::add);
-
-        while (!worklist.isEmpty()) {
-            Node node = worklist.remove();
-
-            Fact inOut=result.getInFact(node);
-
-            for(Node predNode:cfg.getPredsOf(node)){
-                // 获得前驱节点
-                analysis.meetInto(result.getOutFact(predNode),inOut);
+        RPOWorkList<Node> workList = new RPOWorkList<>(cfg);
+        workList.addAll();
+        countPushes(cfg.getNumberOfNodes());
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            countPop();
+            if (cfg.isEntry(node)) {
+                continue;
             }
-
-            if(analysis.transferNode(node,inOut,result.getOutFact(node))){
-               // true说明发生改变了
-               worklist.add(node);
-
+            Fact in = result.getInFact(node);
+            for (Node pred : cfg.getPredsOf(node)) {
+                analysis.meetInto(result.getOutFact(pred), in);
+            }
+            if (analysis.transferNode(node, in, result.getOutFact(node))) {
+                cfg.getSuccsOf(node).forEach(workList::add);
+                countPushes(cfg.getSuccsOf(node).size());
             }
         }
     }
@@ -0,0 +1,237 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.fact.MapFact;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.type.PrimitiveType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Checks {@link CPFact} against the semantics of the map-backed fact it
+ * replaced, which is modeled by a {@link HashMap} where absence is UNDEF.
+ */
+public class CPFactTest {
+
+    private static final int N = 40;
+
+    private final List<Var> vars = new ArrayList<>();
+
+    public CPFactTest() {
+        for (int i = 0; i < N; ++i) {
+            vars.add(new Var(null, "v" + i, PrimitiveType.INT, i));
+        }
+    }
+
+    private static Value randomValue(Random random) {
+        return switch (random.nextInt(6)) {
+            case 0 -> Value.getUndef();
+            case 1 -> Value.getNAC();
+            default -> Value.makeConstant(random.nextInt(4) - 1);
+        };
+    }
+
+    // operations of the map-backed fact
+
+    private static Value get(Map<Var, Value> ref, Var var) {
+        return ref.getOrDefault(var, Value.getUndef());
+    }
+
+    private static boolean update(Map<Var, Value> ref, Var var, Value value) {
+        if (value.isUndef()) {
+            return ref.remove(var) != null;
+        }
+        return !Objects.equals(ref.put(var, value), value);
+    }
+
+    private static boolean copyFrom(Map<Var, Value> ref, Map<Var, Value> other) {
+        boolean changed = false;
+        for (Map.Entry<Var, Value> e : other.entrySet()) {
+            changed |= update(ref, e.getKey(), e.getValue());
+        }
+        return changed;
+    }
+
+    private static Value meetValue(Value v1, Value v2) {
+        if (v1.isNAC() || v2.isNAC()) {
+            return Value.getNAC();
+        } else if (v1.isUndef()) {
+            return v2;
+        } else if (v2.isUndef()) {
+            return v1;
+        } else {
+            return v1.getConstant() == v2.getConstant() ? v1 : Value.getNAC();
+        }
+    }
+
+    private static boolean meet(Map<Var, Value> ref, Map<Var, Value> other) {
+        boolean changed = false;
+        for (Map.Entry<Var, Value> e : other.entrySet()) {
+            changed |= update(ref, e.getKey(),
+                    meetValue(e.getValue(), get(ref, e.getKey())));
+        }
+        return changed;
+    }
+
+    /**
+     * Pair of a CPFact and the reference map with the same content.
+     */
+    private record Pair(CPFact fact, Map<Var, Value> ref) {
+    }
+
+    private Pair newPair(Random random) {
+        // small capacities so that the facts also have to grow
+        Pair pair = new Pair(new CPFact(random.nextInt(N / 4)), new HashMap<>());
+        int n = random.nextInt(N);
+        for (int i = 0; i < n; ++i) {
+            Var var = vars.get(random.nextInt(N));
+            Value value = randomValue(random);
+            Assert.assertEquals("update changed",
+                    update(pair.ref(), var, value), pair.fact().update(var, value));
+        }
+        check(pair, "update");
+        return pair;
+    }
+
+    private void check(Pair pair, String op) {
+        for (Var var : vars) {
+            Assert.assertEquals(op + ": value of " + var,
+                    get(pair.ref(), var), pair.fact().get(var));
+        }
+        Assert.assertEquals(op + ": keys", pair.ref().keySet(), pair.fact().keySet());
+        // the map-backed fact hashes as its map
+        Assert.assertEquals(op + ": hashCode", pair.ref().hashCode(), pair.fact().hashCode());
+    }
+
+    @Test
+    public void testUpdateRemove() {
+        Random random = new Random(1);
+        Pair pair = newPair(random);
+        for (int i = 0; i < 1000; ++i) {
+            Var var = vars.get(random.nextInt(N));
+            if (random.nextInt(4) == 0) {
+                Assert.assertEquals("remove", pair.ref().remove(var),
+                        pair.fact().remove(var));
+            } else {
+                Value value = randomValue(random);
+                Assert.assertEquals("update changed",
+                        update(pair.ref(), var, value), pair.fact().update(var, value));
+            }
+        }
+        check(pair, "update/remove");
+        pair.fact().clear();
+        pair.ref().clear();
+        check(pair, "clear");
+    }
+
+    @Test
+    public void testEqualsHashCode() {
+        Random random = new Random(2);
+        for (int i = 0; i < 300; ++i) {
+            Pair p1 = newPair(random);
+            Pair p2 = newPair(random);
+            boolean expected = p1.ref().equals(p2.ref());
+            Assert.assertEquals(expected, p1.fact().equals(p2.fact()));
+            Assert.assertEquals(expected, p2.fact().equals(p1.fact()));
+            // the same content built in another order and capacity
+            CPFact same = new CPFact(0);
+            List<Var> keys = new ArrayList<>(p1.ref().keySet());
+            Collections.shuffle(keys, random);
+            keys.forEach(var -> same.update(var, p1.ref().get(var)));
+            Assert.assertEquals(p1.fact(), same);
+            Assert.assertEquals(p1.fact().hashCode(), same.hashCode());
+        }
+    }
+
+    @Test
+    public void testCopyFrom() {
+        Random random = new Random(3);
+        for (int i = 0; i < 300; ++i) {
+            Pair pair = newPair(random);
+            Pair other = newPair(random);
+            if (random.nextBoolean()) {
+                Assert.assertEquals("copyFrom changed",
+                        copyFrom(pair.ref(), other.ref()),
+                        pair.fact().copyFrom(other.fact()));
+            } else {
+                // from a map-backed fact
+                Assert.assertEquals("copyFrom changed",
+                        copyFrom(pair.ref(), other.ref()),
+                        pair.fact().copyFrom(new MapFact<>(other.ref())));
+            }
+            check(pair, "copyFrom");
+            Assert.assertFalse("copyFrom again",
+                    pair.fact().copyFrom(other.fact()));
+        }
+    }
+
+    @Test
+    public void testMeet() {
+        Random random = new Random(4);
+        for (int i = 0; i < 300; ++i) {
+            Pair pair = newPair(random);
+            Pair other = newPair(random);
+            Assert.assertEquals("meet changed",
+                    meet(pair.ref(), other.ref()), pair.fact().meet(other.fact()));
+            check(pair, "meet");
+            Assert.assertFalse("meet again", pair.fact().meet(other.fact()));
+        }
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        Random random = new Random(5);
+        Pair pair = newPair(random);
+        CPFact copy = pair.fact().copy();
+        Assert.assertEquals(pair.fact(), copy);
+        copy.update(vars.get(0), Value.getNAC());
+        copy.update(vars.get(N - 1), Value.makeConstant(42));
+        check(pair, "copy");
+    }
+
+    @Test
+    public void testDivisionByZero() {
+        Var x = vars.get(0), y = vars.get(1);
+        CPFact fact = new CPFact();
+        fact.update(x, Value.makeConstant(7));
+        fact.update(y, Value.makeConstant(0));
+        for (ArithmeticExp.Op op : List.of(
+                ArithmeticExp.Op.DIV, ArithmeticExp.Op.REM)) {
+            Assert.assertEquals("x " + op + " 0", Value.getUndef(),
+                    ConstantPropagation.evaluate(new ArithmeticExp(op, x, y), fact));
+        }
+        fact.update(y, Value.makeConstant(3));
+        Assert.assertEquals("7 % 3", Value.makeConstant(1), ConstantPropagation.evaluate(
+                new ArithmeticExp(ArithmeticExp.Op.REM, x, y), fact));
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.Tests;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks that the results of sparse constant propagation are the same
+ * as, or more precise than, the expected results of the dense analysis.
+ */
+public class SparseCPTest {
+
+    private static final String CLASS_PATH = "src/test/resources/dataflow/constprop/";
+
+    void testSparseCP(String inputClass) {
+        List<String> expected = Tests.readExpected(
+                inputClass, CLASS_PATH, ConstantPropagation.ID);
+        List<String> actual = Tests.dump(inputClass, CLASS_PATH,
+                ConstantPropagation.ID, "edge-refine:false;sparse:true");
+        Assert.assertEquals("Number of lines of sparse results",
+                expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); ++i) {
+            Assert.assertTrue("Sparse result is less precise:\n" +
+                            expected.get(i) + "\n" + actual.get(i),
+                    isAsPrecise(expected.get(i), actual.get(i)));
+        }
+    }
+
+    /**
+     * Compares two lines of results, where each statement is followed by
+     * its fact, e.g., {@code [4@L6] x = 1; {p=NAC, x=1}}.
+     *
+     * @return true if the lines are of the same statement, and every variable
+     * in the actual fact has the same value in the expected fact, or NAC.
+     * The variables absent in the actual fact are UNDEF, which is the most
+     * precise value.
+     */
+    static boolean isAsPrecise(String expected, String actual) {
+        if (expected.equals(actual)) {
+            return true;
+        }
+        int e = expected.lastIndexOf(" {");
+        int a = actual.lastIndexOf(" {");
+        if (e < 0 || a < 0 || !expected.substring(0, e).equals(actual.substring(0, a))) {
+            return false;
+        }
+        Map<String, String> expectedFact = parseFact(expected.substring(e + 1));
+        for (Map.Entry<String, String> entry : parseFact(actual.substring(a + 1)).entrySet()) {
+            String value = expectedFact.get(entry.getKey());
+            if (!entry.getValue().equals(value) && !"NAC".equals(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses a fact of the form {@code {x=1, y=NAC}}.
+     */
+    private static Map<String, String> parseFact(String fact) {
+        Map<String, String> values = new HashMap<>();
+        String content = fact.substring(1, fact.length() - 1);
+        if (!content.isEmpty()) {
+            for (String entry : content.split(", ")) {
+                int i = entry.indexOf('=');
+                values.put(entry.substring(0, i), entry.substring(i + 1));
+            }
+        }
+        return values;
+    }
+
+    @Test
+    public void testAssign() {
+        testSparseCP("Assign");
+    }
+
+    @Test
+    public void testSimpleConstant() {
+        testSparseCP("SimpleConstant");
+    }
+
+    @Test
+    public void testSimpleBinary() {
+        testSparseCP("SimpleBinary");
+    }
+
+    @Test
+    public void testSimpleBranch() {
+        testSparseCP("SimpleBranch");
+    }
+
+    @Test
+    public void testSimpleChar() {
+        testSparseCP("SimpleChar");
+    }
+
+    @Test
+    public void testBranchConstant() {
+        testSparseCP("BranchConstant");
+    }
+
+    @Test
+    public void testInterprocedural() {
+        testSparseCP("Interprocedural");
+    }
+}
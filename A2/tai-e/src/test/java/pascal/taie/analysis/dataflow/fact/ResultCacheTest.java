@@ -0,0 +1,296 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.DefaultIR;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Binary;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.PrimitiveType;
+
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ResultCacheTest {
+
+    private static final String OPTIONS = "options";
+
+    private static final JMethod METHOD = new JMethod(new JClass(null, "C"),
+            "m", Set.of(), List.of(), PrimitiveType.INT, List.of(),
+            null, null, null);
+
+    /**
+     * Codec of sets of variables for the tests.
+     */
+    private static final FactCodec<Set<Var>> CODEC = new FactCodec<>() {
+
+        @Override
+        public void write(Set<Var> fact, DataOutput out) throws IOException {
+            FactCodec.writeVarInt(out, fact.size());
+            for (Var var : fact) {
+                FactCodec.writeVarInt(out, var.getIndex());
+            }
+        }
+
+        @Override
+        public void read(ByteBuffer in, IR ir, Set<Var> fact) {
+            int size = FactCodec.readVarInt(in);
+            for (int i = 0; i < size; ++i) {
+                fact.add(ir.getVar(FactCodec.readVarInt(in)));
+            }
+        }
+    };
+
+    private File dir;
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("result-cache").toFile();
+        file = new File(dir, "test.bin");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<File> files = Files.walk(dir.toPath())
+                .sorted(Comparator.reverseOrder())
+                .map(Path::toFile)) {
+            files.forEach(File::delete);
+        }
+    }
+
+    /**
+     * Builds the CFG of method {@code int m()} consisting of
+     * <pre>
+     * 0: x = constant
+     * 1: if (x < y) goto 3
+     * 2: y = x + y
+     * 3: return y
+     * </pre>
+     */
+    private static CFG<Stmt> buildCFG(int constant) {
+        Var x = new Var(METHOD, "x", PrimitiveType.INT, 0);
+        Var y = new Var(METHOD, "y", PrimitiveType.INT, 1);
+        Return ret = new Return(y);
+        If ifStmt = new If(new ConditionExp(ConditionExp.Op.LT, x, y));
+        ifStmt.setTarget(ret);
+        List<Stmt> stmts = List.of(
+                new AssignLiteral(x, IntLiteral.get(constant)),
+                ifStmt,
+                new Binary(y, new ArithmeticExp(ArithmeticExp.Op.ADD, x, y)),
+                ret);
+        for (int i = 0; i < stmts.size(); ++i) {
+            stmts.get(i).setIndex(i);
+        }
+        IR ir = new DefaultIR(METHOD, null, List.of(), Set.of(),
+                List.of(x, y), stmts, List.of());
+        return new CFGBuilder(new AnalysisConfig("", "", CFGBuilder.ID,
+                List.of(), new AnalysisOptions(Map.of(
+                        "exception", "none", "dump", false)))).analyze(ir);
+    }
+
+    /**
+     * @return a result where the facts of different nodes may differ.
+     */
+    private static DataflowResult<Stmt, Set<Var>> buildResult(CFG<Stmt> cfg) {
+        DataflowResult<Stmt, Set<Var>> result = new DataflowResult<>();
+        List<Var> vars = cfg.getIR().getVars();
+        for (Stmt stmt : cfg) {
+            int i = Math.floorMod(stmt.getIndex(), vars.size() + 1);
+            result.setInFact(stmt, new HashSet<>(vars.subList(0, i)));
+            result.setOutFact(stmt, new HashSet<>(vars.subList(i, vars.size())));
+        }
+        return result;
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    @Test
+    public void testRoundTrip() {
+        CFG<Stmt> cfg = buildCFG(1);
+        ResultCache cache = new ResultCache(file, OPTIONS);
+        ResultCache.Key key = cache.keyOf(cfg);
+        DataflowResult<Stmt, Set<Var>> result = buildResult(cfg);
+        cache.putResult(key, cfg, result, CODEC);
+        cache.save();
+
+        ResultCache loaded = new ResultCache(file, OPTIONS);
+        CFG<Stmt> rebuilt = buildCFG(1);
+        ResultCache.Key rebuiltKey = loaded.keyOf(rebuilt);
+        assertEquals(key, rebuiltKey);
+        DataflowResult<Stmt, Set<Var>> cached = loaded.getResult(
+                rebuiltKey, rebuilt, CODEC, HashSet::new);
+        assertNotNull(cached);
+        Map<Integer, Stmt> originals = new HashMap<>();
+        cfg.forEach(stmt -> originals.put(stmt.getIndex(), stmt));
+        for (Stmt stmt : rebuilt) {
+            Stmt original = originals.get(stmt.getIndex());
+            assertEquals(names(result.getInFact(original)), names(cached.getInFact(stmt)));
+            assertEquals(names(result.getOutFact(original)), names(cached.getOutFact(stmt)));
+        }
+    }
+
+    private static Set<String> names(Set<Var> vars) {
+        Set<String> names = new HashSet<>();
+        vars.forEach(var -> names.add(var.getName()));
+        return names;
+    }
+
+    @Test
+    public void testRawDataRoundTrip() {
+        ResultCache cache = new ResultCache(file, OPTIONS);
+        ResultCache.Key key1 = new ResultCache.Key(1, 2, 3);
+        ResultCache.Key key2 = new ResultCache.Key(4, 5, 6);
+        cache.put(key1, new byte[]{ 1, 2, 3 });
+        cache.put(key2, new byte[0]);
+        cache.save();
+
+        ResultCache loaded = new ResultCache(file, OPTIONS);
+        assertArrayEquals(new byte[]{ 1, 2, 3 }, toArray(loaded.get(key1)));
+        // the cached data can be read more than once
+        assertArrayEquals(new byte[]{ 1, 2, 3 }, toArray(loaded.get(key1)));
+        assertArrayEquals(new byte[0], toArray(loaded.get(key2)));
+        assertNull(loaded.get(new ResultCache.Key(7, 8, 9)));
+    }
+
+    @Test
+    public void testFingerprintMiss() {
+        ResultCache cache = new ResultCache(file, OPTIONS);
+        CFG<Stmt> cfg = buildCFG(1);
+        ResultCache.Key key = cache.keyOf(cfg);
+        cache.putResult(key, cfg, buildResult(cfg), CODEC);
+        cache.save();
+
+        ResultCache loaded = new ResultCache(file, OPTIONS);
+        CFG<Stmt> changed = buildCFG(2);
+        ResultCache.Key changedKey = loaded.keyOf(changed);
+        assertEquals(key.method(), changedKey.method());
+        assertNotEquals(key, changedKey);
+        assertNull(loaded.get(changedKey));
+        assertNull(loaded.getResult(changedKey, changed, CODEC, HashSet::new));
+        // the options of the analysis are part of the fingerprint
+        ResultCache other = new ResultCache(file, OPTIONS + ";changed");
+        assertNull(other.get(other.keyOf(cfg)));
+        // a stale result is replaced by the new one
+        loaded.putResult(changedKey, changed, buildResult(changed), CODEC);
+        assertNull(loaded.get(key));
+        assertNotNull(loaded.get(changedKey));
+    }
+
+    @Test
+    public void testCorruptFile() throws IOException {
+        ResultCache.Key key = new ResultCache.Key(1, 2, 3);
+        // unknown format
+        Files.write(file.toPath(), new byte[]{ 'n', 'o', 't', ' ', 'a', ' ',
+                'c', 'a', 'c', 'h', 'e' });
+        assertNull(new ResultCache(file, OPTIONS).get(key));
+        // valid header with truncated index
+        ResultCache cache = new ResultCache(file, OPTIONS);
+        cache.put(key, new byte[]{ 1, 2, 3 });
+        cache.put(new ResultCache.Key(4, 5, 6), new byte[]{ 4 });
+        cache.save();
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), Arrays.copyOf(bytes, 20));
+        assertNull(new ResultCache(file, OPTIONS).get(key));
+        // index referring to data out of the file
+        Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 2));
+        ResultCache truncated = new ResultCache(file, OPTIONS);
+        assertNull(truncated.get(key));
+        // the corrupt file is replaced when the cache is saved
+        truncated.put(key, new byte[]{ 1, 2, 3 });
+        truncated.save();
+        assertArrayEquals(new byte[]{ 1, 2, 3 },
+                toArray(new ResultCache(file, OPTIONS).get(key)));
+    }
+
+    @Test
+    public void testCorruptResult() {
+        ResultCache cache = new ResultCache(file, OPTIONS);
+        CFG<Stmt> cfg = buildCFG(1);
+        ResultCache.Key key = cache.keyOf(cfg);
+        // the data is too short for the facts of all nodes
+        cache.put(key, new byte[]{ 1, 0 });
+        assertNull(cache.getResult(key, cfg, CODEC, HashSet::new));
+        // the data refers to a variable absent in the IR,
+        // i.e., each fact is a single variable of index 100
+        byte[] bytes = new byte[4 * cfg.getNumberOfNodes()];
+        for (int i = 0; i < bytes.length; i += 2) {
+            bytes[i] = 1;
+            bytes[i + 1] = 100;
+        }
+        cache.put(key, bytes);
+        assertNull(cache.getResult(key, cfg, CODEC, HashSet::new));
+    }
+
+    @Test
+    public void testGetWithDifferentOptions() {
+        String id = "result-cache-test";
+        ResultCache cache = ResultCache.get(id, OPTIONS);
+        ResultCache other = ResultCache.get(id, OPTIONS + "-other");
+        assertSame(cache, ResultCache.get(id, OPTIONS));
+        assertNotSame(cache, other);
+        CFG<Stmt> cfg = buildCFG(1);
+        assertNotEquals(cache.keyOf(cfg), other.keyOf(cfg));
+    }
+}
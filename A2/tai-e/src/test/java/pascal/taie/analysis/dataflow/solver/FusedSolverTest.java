@@ -0,0 +1,129 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class FusedSolverTest {
+
+    private static final String[] SOLVERS = {"worklist", "wto", "block"};
+
+    /**
+     * Checks that solving the analyses together gives the same results
+     * as solving each of them separately, with each kind of solver.
+     */
+    private static void testFused(List<? extends DataflowAnalysis<Stmt, ?>> analyses) {
+        Random random = new Random(0);
+        for (int n = 0; n < 100; ++n) {
+            CFG<Stmt> cfg = RandomIR.build(random).getResult(CFGBuilder.ID);
+            for (String kind : SOLVERS) {
+                List<DataflowResult<Stmt, ?>> fused =
+                        new FusedSolver<>(analyses, kind).solve(cfg);
+                for (int i = 0; i < analyses.size(); ++i) {
+                    DataflowResult<Stmt, ?> separate =
+                            Solver.makeSolver(analyses.get(i), kind).solve(cfg);
+                    for (Stmt node : cfg) {
+                        String message = kind + " solver, analysis " + i + ", " + node;
+                        assertEquals(message, separate.getInFact(node),
+                                fused.get(i).getInFact(node));
+                        assertEquals(message, separate.getOutFact(node),
+                                fused.get(i).getOutFact(node));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Analysis of the variables which are used before (after) each node
+     * in forward (backward) direction, which converges at a different
+     * speed from the analyses under test.
+     */
+    private record UsedVars(boolean isForward)
+            implements DataflowAnalysis<Stmt, Set<Var>> {
+
+        @Override
+        public Set<Var> newBoundaryFact(CFG<Stmt> cfg) {
+            return new HashSet<>();
+        }
+
+        @Override
+        public Set<Var> newInitialFact() {
+            return new HashSet<>();
+        }
+
+        @Override
+        public void meetInto(Set<Var> fact, Set<Var> target) {
+            target.addAll(fact);
+        }
+
+        @Override
+        public boolean transferNode(Stmt stmt, Set<Var> in, Set<Var> out) {
+            Set<Var> result = new HashSet<>(isForward ? in : out);
+            stmt.getUses().forEach(use -> {
+                if (use instanceof Var var) {
+                    result.add(var);
+                }
+            });
+            Set<Var> target = isForward ? out : in;
+            if (result.equals(target)) {
+                return false;
+            }
+            target.clear();
+            target.addAll(result);
+            return true;
+        }
+
+        @Override
+        public boolean needTransferEdge(Edge<Stmt> edge) {
+            return false;
+        }
+
+        @Override
+        public Set<Var> transferEdge(Edge<Stmt> edge, Set<Var> nodeFact) {
+            return nodeFact;
+        }
+    }
+
+    @Test
+    public void testForward() {
+        testFused(List.of(
+                new ConstantPropagation(RandomIR.config(ConstantPropagation.ID, "edge-refine", false)),
+                new UsedVars(true)));
+    }
+}
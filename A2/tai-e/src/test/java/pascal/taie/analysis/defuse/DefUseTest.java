@@ -0,0 +1,142 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.defuse;
+
+import org.junit.Test;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.DefaultIR;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Binary;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Goto;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.type.PrimitiveType;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DefUseTest {
+
+    /**
+     * Builds the IR of:
+     * <pre>
+     * 0: i = 0;
+     * 1: one = 1;
+     * 2: if (i > n) goto 6;
+     * 3: i = i + one;
+     * 4: x = i;
+     * 5: goto 2;
+     * 6: return i;
+     * </pre>
+     * where n is not defined in the method, like a parameter.
+     */
+    private static IR buildLoop() {
+        Var i = new Var(null, "i", PrimitiveType.INT, 0);
+        Var one = new Var(null, "one", PrimitiveType.INT, 1);
+        Var n = new Var(null, "n", PrimitiveType.INT, 2);
+        Var x = new Var(null, "x", PrimitiveType.INT, 3);
+        If loop = new If(new ConditionExp(ConditionExp.Op.GT, i, n));
+        Goto back = new Goto();
+        Return ret = new Return(i);
+        loop.setTarget(ret);
+        back.setTarget(loop);
+        List<Stmt> stmts = List.of(
+                new AssignLiteral(i, IntLiteral.get(0)),
+                new AssignLiteral(one, IntLiteral.get(1)),
+                loop,
+                new Binary(i, new ArithmeticExp(ArithmeticExp.Op.ADD, i, one)),
+                new Copy(x, i),
+                back,
+                ret);
+        for (int index = 0; index < stmts.size(); ++index) {
+            stmts.get(index).setIndex(index);
+        }
+        IR ir = new DefaultIR(null, null, List.of(), Set.of(),
+                List.of(i, one, n, x), stmts, List.of());
+        AnalysisConfig config = new AnalysisConfig("", "", CFGBuilder.ID, List.of(),
+                new AnalysisOptions(Map.of("exception", "none", "dump", false)));
+        ir.storeResult(CFGBuilder.ID, new CFGBuilder(config).analyze(ir));
+        return ir;
+    }
+
+    private static List<Stmt> stmts(IR ir, int... indexes) {
+        return Arrays.stream(indexes).mapToObj(ir::getStmt).toList();
+    }
+
+    @Test
+    public void testLoopCarriedDefinition() {
+        IR ir = buildLoop();
+        DefUse defUse = DefUseAnalysis.getDefUse(ir);
+        Var i = ir.getVar(0);
+        // i = i + one reaches itself via the back edge
+        assertEquals(stmts(ir, 2, 3, 4, 6), defUse.getUses(ir.getStmt(3)));
+        assertEquals(stmts(ir, 0, 3), defUse.getDefs(ir.getStmt(3), i));
+        assertEquals(stmts(ir, 0, 3), defUse.getDefs(ir.getStmt(6), i));
+        assertEquals(stmts(ir, 2, 3, 6), defUse.getUses(ir.getStmt(0)));
+        assertEquals(stmts(ir, 3), defUse.getUses(ir.getStmt(1)));
+        // x is never used, and goto defines nothing
+        assertEquals(List.of(), defUse.getUses(ir.getStmt(4)));
+        assertEquals(List.of(), defUse.getUses(ir.getStmt(5)));
+    }
+
+    @Test
+    public void testEntryDefinition() {
+        IR ir = buildLoop();
+        DefUse defUse = DefUseAnalysis.getDefUse(ir);
+        Var i = ir.getVar(0), n = ir.getVar(2);
+        assertEquals(List.of(), defUse.getDefs(ir.getStmt(2), n));
+        assertTrue(defUse.isEntryReaching(ir.getStmt(2), n));
+        // i is defined before any use, so its entry value never reaches
+        assertFalse(defUse.isEntryReaching(ir.getStmt(2), i));
+        assertFalse(defUse.isEntryReaching(ir.getStmt(6), i));
+    }
+
+    @Test
+    public void testEntryAndExitNodes() {
+        IR ir = buildLoop();
+        DefUse defUse = DefUseAnalysis.getDefUse(ir);
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        Var i = ir.getVar(0);
+        for (Stmt node : List.of(cfg.getEntry(), cfg.getExit())) {
+            assertEquals(List.of(), defUse.getUses(node));
+            assertEquals(List.of(), defUse.getDefs(node, i));
+            assertFalse(defUse.isEntryReaching(node, i));
+        }
+    }
+}
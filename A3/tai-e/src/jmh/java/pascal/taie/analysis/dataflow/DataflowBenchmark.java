@@ -0,0 +1,187 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.dataflow.analysis.DeadCodeDetection;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.exception.ThrowAnalysis;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.language.classes.JMethod;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the intraprocedural data-flow analyses, which analyze all
+ * application methods of a program per invocation. The programs are the
+ * test cases of dead code detection, constant propagation and live variable
+ * analysis, and a program of large generated methods
+ * (see {@link GeneratedProgram}).
+ * <p>
+ * Run with {@code ./gradlew jmh}, which also reports the allocation rate
+ * by the GC profiler.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4G")
+@State(Scope.Benchmark)
+public class DataflowBenchmark {
+
+    private static final String TEST_CASES = "src/test/resources/dataflow/";
+
+    /**
+     * The test cases are given as "directory/main class", where the
+     * directories are in {@link #TEST_CASES}.
+     */
+    @Param({
+            "deadcode/ControlFlowUnreachable",
+            "deadcode/UnreachableIfBranch",
+            "deadcode/UnreachableSwitchBranch",
+            "deadcode/DeadAssignment",
+            "deadcode/Loops",
+            "constprop/Assign",
+            "constprop/BranchConstant",
+            "constprop/Interprocedural",
+            "constprop/SimpleBinary",
+            "constprop/SimpleBranch",
+            "constprop/SimpleChar",
+            "constprop/SimpleConstant",
+            "livevar/Array",
+            "livevar/Assign",
+            "livevar/Branch",
+            "livevar/BranchLoop",
+            "livevar/Fibonacci",
+            "livevar/Reference",
+            GeneratedProgram.MAIN,
+    })
+    public String program;
+
+    @Param({"worklist", "wto", "block"})
+    public String solver;
+
+    /**
+     * Directory of the generated program, or null if the program
+     * is a test case.
+     */
+    private Path generatedDir;
+
+    private List<IR> irs;
+
+    private LiveVariableAnalysis liveVars;
+
+    private ConstantPropagation constants;
+
+    private DeadCodeDetection deadCode;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String classPath, mainClass;
+        if (program.equals(GeneratedProgram.MAIN)) {
+            generatedDir = GeneratedProgram.write();
+            classPath = generatedDir.toString();
+            mainClass = program;
+        } else {
+            int slash = program.indexOf('/');
+            classPath = TEST_CASES + program.substring(0, slash);
+            mainClass = program.substring(slash + 1);
+        }
+        Main.buildWorld("-pp", "-cp", classPath, "-m", mainClass);
+        irs = World.get().getClassHierarchy()
+                .applicationClasses()
+                .flatMap(c -> c.getDeclaredMethods().stream())
+                .filter(m -> !m.isAbstract() && !m.isNative())
+                .map(JMethod::getIR)
+                .toList();
+        // build the CFGs once, as they are not measured
+        ThrowAnalysis throwAnalysis = new ThrowAnalysis(new AnalysisConfig(
+                ThrowAnalysis.ID, "exception", "explicit", "algorithm", "intra"));
+        CFGBuilder cfgBuilder = new CFGBuilder(new AnalysisConfig(
+                CFGBuilder.ID, "exception", "explicit", "dump", false));
+        for (IR ir : irs) {
+            ir.storeResult(ThrowAnalysis.ID, throwAnalysis.analyze(ir));
+            ir.storeResult(CFGBuilder.ID, cfgBuilder.analyze(ir));
+        }
+        liveVars = new LiveVariableAnalysis(new AnalysisConfig(
+                LiveVariableAnalysis.ID, "strongly", false, "solver", solver));
+        constants = new ConstantPropagation(new AnalysisConfig(
+                ConstantPropagation.ID, "edge-refine", false, "solver", solver));
+        deadCode = new DeadCodeDetection(new AnalysisConfig(DeadCodeDetection.ID));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (generatedDir != null) {
+            GeneratedProgram.delete(generatedDir);
+            generatedDir = null;
+        }
+    }
+
+    @Benchmark
+    public void liveVariableAnalysis(Blackhole blackhole) {
+        for (IR ir : irs) {
+            blackhole.consume(liveVars.analyze(ir));
+        }
+    }
+
+    @Benchmark
+    public void constantPropagation(Blackhole blackhole) {
+        for (IR ir : irs) {
+            blackhole.consume(constants.analyze(ir));
+        }
+    }
+
+    /**
+     * Dead code detection including the analyses it depends on.
+     */
+    @Benchmark
+    public void deadCodeDetection(Blackhole blackhole) {
+        for (IR ir : irs) {
+            ir.storeResult(ConstantPropagation.ID, constants.analyze(ir));
+            ir.storeResult(LiveVariableAnalysis.ID, liveVars.analyze(ir));
+            blackhole.consume(deadCode.analyze(ir));
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Generator of a program with large methods, which stress the data-flow
+ * solvers with long straight-line code, many branches, nested loops,
+ * and large switches, respectively.
+ */
+final class GeneratedProgram {
+
+    /**
+     * Name of the main class of the generated program.
+     */
+    static final String MAIN = "Generated";
+
+    /**
+     * Number of repetitions of the code pattern in each method.
+     */
+    private static final int SIZE = 500;
+
+    private GeneratedProgram() {
+    }
+
+    /**
+     * Writes the source of the program to a new temporary directory.
+     *
+     * @return the directory, i.e., the class path of the program.
+     */
+    static Path write() throws IOException {
+        Path dir = Files.createTempDirectory("tai-e-jmh");
+        Files.writeString(dir.resolve(MAIN + ".java"), generate());
+        return dir;
+    }
+
+    /**
+     * Deletes a directory written by {@link #write()}, with its contents.
+     */
+    static void delete(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            // delete the files before the directories containing them
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static String generate() {
+        StringBuilder src = new StringBuilder();
+        src.append("public class ").append(MAIN).append(" {\n\n")
+                .append("    public static void main(String[] args) {\n")
+                .append("        int p = args.length;\n")
+                .append("        straightLine(p);\n")
+                .append("        branches(p);\n")
+                .append("        loops(p);\n")
+                .append("        switches(p);\n")
+                .append("    }\n\n");
+        // straight-line code where each variable depends on the previous one
+        src.append("    static int straightLine(int p) {\n")
+                .append("        int v0 = p;\n");
+        for (int i = 1; i < SIZE; ++i) {
+            src.append("        int v").append(i).append(" = v").append(i - 1)
+                    .append(" * 3 + ").append(i).append(";\n");
+        }
+        src.append("        return v").append(SIZE - 1).append(";\n")
+                .append("    }\n\n");
+        // a chain of if-else diamonds, half of which are decidable
+        src.append("    static int branches(int p) {\n")
+                .append("        int x = 1;\n")
+                .append("        int y = p;\n")
+                .append("        int c = 2;\n");
+        for (int i = 0; i < SIZE; ++i) {
+            String cond = i % 2 == 0 ? "c > " + (i % 4) : "y > " + i;
+            src.append("        if (").append(cond).append(") {\n")
+                    .append("            x = x + ").append(i).append(";\n")
+                    .append("        } else {\n")
+                    .append("            y = y - x;\n")
+                    .append("        }\n");
+        }
+        src.append("        return x + y;\n")
+                .append("    }\n\n");
+        // sequences of doubly nested loops
+        src.append("    static int loops(int p) {\n")
+                .append("        int s = 0;\n");
+        for (int i = 0; i < SIZE / 10; ++i) {
+            src.append("        for (int i").append(i).append(" = 0; i").append(i)
+                    .append(" < p; i").append(i).append("++) {\n")
+                    .append("            int k = ").append(i).append(";\n")
+                    .append("            for (int j = 0; j < i").append(i).append("; j++) {\n")
+                    .append("                s = s + j * k;\n")
+                    .append("                if (s > 100) {\n")
+                    .append("                    s = s - 100;\n")
+                    .append("                }\n")
+                    .append("            }\n")
+                    .append("        }\n");
+        }
+        src.append("        return s;\n")
+                .append("    }\n\n");
+        // switches on both constant and unknown values
+        src.append("    static int switches(int p) {\n")
+                .append("        int r = 0;\n")
+                .append("        int k = 3;\n");
+        for (int i = 0; i < SIZE / 10; ++i) {
+            src.append("        switch (").append(i % 2 == 0 ? "k" : "p").append(") {\n");
+            for (int c = 0; c < 8; ++c) {
+                src.append("            case ").append(c).append(":\n")
+                        .append("                r = r + ").append(c * i).append(";\n")
+                        .append("                break;\n");
+            }
+            src.append("            default:\n")
+                    .append("                r = r - 1;\n")
+                    .append("        }\n");
+        }
+        src.append("        return r;\n")
+                .append("    }\n")
+                .append("}\n");
+        return src.toString();
+    }
+}
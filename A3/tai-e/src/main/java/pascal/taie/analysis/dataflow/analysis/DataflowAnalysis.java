@@ -49,12 +49,38 @@ public interface DataflowAnalysis<Node, Fact> {
      */
     Fact newInitialFact();
 
+    /**
+     * @return new initial fact for non-boundary nodes of the given CFG.
+     * By default, this is the same as {@link #newInitialFact()}; analyses
+     * whose facts depend on the analyzed method (e.g., bit-vector facts
+     * indexed by the variables of the method) can override this method.
+     */
+    default Fact newInitialFact(CFG<Node> cfg) {
+        return newInitialFact();
+    }
+
     /**
      * Meets a fact into another (target) fact.
      * This function will be used to handle control-flow confluences.
      */
     void meetInto(Fact fact, Fact target);
 
+    /**
+     * Widens a fact into another (target) fact. Solvers which are aware
+     * of loops call this function, instead of {@link #meetInto}, at
+     * widening points, i.e., the heads of loops, where {@code fact} is
+     * the meet of all facts flowing into {@code node}.
+     * <p>
+     * By default, this function simply meets the fact into the target,
+     * which suffices for lattices of finite height. Analyses whose lattices
+     * have infinite ascending chains can override it to ensure termination.
+     *
+     * @param node the widening point
+     */
+    default void widenInto(Node node, Fact fact, Fact target) {
+        meetInto(fact, target);
+    }
+
     /**
      * Node Transfer function for the analysis.
      * The function transfers data-flow from in (out) fact to out (in) fact
@@ -22,193 +22,228 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
 import pascal.taie.analysis.MethodAnalysis;
 import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
 import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
 import pascal.taie.analysis.dataflow.analysis.constprop.Value;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.FactCodec;
+import pascal.taie.analysis.dataflow.fact.ResultCache;
 import pascal.taie.analysis.dataflow.fact.SetFact;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.cfg.Edge;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.Options;
+import pascal.taie.config.PlanConfig;
 import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.*;
 import pascal.taie.ir.stmt.AssignStmt;
 import pascal.taie.ir.stmt.If;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.ir.stmt.SwitchStmt;
+import pascal.taie.util.collection.Sets;
 
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.function.Consumer;
 
 public class DeadCodeDetection extends MethodAnalysis {
 
     public static final String ID = "deadcode";
 
+    private static final Logger logger = LogManager.getLogger(DeadCodeDetection.class);
+
+    /**
+     * Options which the cached results depend on, or null if option
+     * "cache" is disabled.
+     */
+    @Nullable
+    private final String cacheOptions;
+
     public DeadCodeDetection(AnalysisConfig config) {
         super(config);
+        cacheOptions = getOptions().getBooleanOrDefault("cache", false)
+                ? getCacheOptions() : null;
+    }
+
+    /**
+     * The dead code also depends on the options of constant propagation
+     * and live variable analysis, thus these options are part of
+     * the fingerprints of the cached results.
+     */
+    private String getCacheOptions() {
+        Options options = World.get().getOptions();
+        List<PlanConfig> plans = options.getPlanFile() != null
+                ? PlanConfig.readConfigs(options.getPlanFile())
+                : PlanConfig.readConfigs(options);
+        Map<String, AnalysisOptions> upstream = new HashMap<>();
+        plans.forEach(plan -> upstream.put(plan.getId(), plan.getOptions()));
+        AnalysisOptions cp = upstream.get(ConstantPropagation.ID);
+        AnalysisOptions lv = upstream.get(LiveVariableAnalysis.ID);
+        return getOptions()
+                + ";constprop.sparse:" + (cp == null ? null : cp.get("sparse"))
+                + ";constprop.edge-refine:" + (cp == null ? null : cp.get("edge-refine"))
+                + ";livevar.strongly:" + (lv == null ? null : lv.get("strongly"));
     }
 
+    /**
+     * If option "cache" is enabled, the dead code of the methods whose
+     * CFGs are unchanged since previous runs is read from the
+     * {@link ResultCache}, where each result is kept as the number of
+     * the dead statements followed by their indexes.
+     *
+     * @return the dead code of given IR, sorted by the indexes.
+     */
     @Override
     public Set<Stmt> analyze(IR ir) {
-        // obtain CFG
         CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
-        // obtain result of constant propagation
+        BitSet deadCode = new BitSet(cfg.getNumberOfNodes());
+        if (cacheOptions == null || cfg.getMethod() == null) {
+            detect(ir, stmt -> deadCode.set(stmt.getIndex()));
+            return toSet(cfg, deadCode);
+        }
+        ResultCache cache = ResultCache.get(ID, cacheOptions);
+        ResultCache.Key key = cache.keyOf(cfg);
+        ByteBuffer data = cache.get(key);
+        if (data != null) {
+            try {
+                int size = FactCodec.readVarInt(data);
+                for (int i = 0; i < size; ++i) {
+                    int index = FactCodec.readVarInt(data);
+                    if (index < 0 || index >= cfg.getNumberOfNodes()) {
+                        throw new IndexOutOfBoundsException(index);
+                    }
+                    deadCode.set(index);
+                }
+                return toSet(cfg, deadCode);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to read cached dead code of {}",
+                        cfg.getMethod(), e);
+                deadCode.clear();
+            }
+        }
+        detect(ir, stmt -> deadCode.set(stmt.getIndex()));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            FactCodec.writeVarInt(out, deadCode.cardinality());
+            for (int i = deadCode.nextSetBit(0); i >= 0;
+                 i = deadCode.nextSetBit(i + 1)) {
+                FactCodec.writeVarInt(out, i);
+            }
+        } catch (IOException e) {
+            // writing to a byte array never fails
+            throw new RuntimeException(e);
+        }
+        cache.put(key, bytes.toByteArray());
+        return toSet(cfg, deadCode);
+    }
+
+    /**
+     * Detects the dead code of given IR, which requires the results of
+     * constant propagation and live variable analysis on the IR.
+     * <p>
+     * The reachable code is traversed once, where the dead assignments are
+     * passed to given sink as soon as they are visited, and then the
+     * unreachable code is passed to the sink. Thus, the dead statements are
+     * not passed in the order of their indexes, but each of them is passed
+     * exactly once.
+     */
+    public static void detect(IR ir, Consumer<? super Stmt> sink) {
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
         DataflowResult<Stmt, CPFact> constants =
                 ir.getResult(ConstantPropagation.ID);
-        // obtain result of live variable analysis
         DataflowResult<Stmt, SetFact<Var>> liveVars =
                 ir.getResult(LiveVariableAnalysis.ID);
-        // keep statements (dead code) sorted in the resulting set
-        Set<Stmt> deadCode = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
-        // TODO - finish me
-        // Your task is to recognize dead code in ir and add it to deadCode
-        Set<Stmt> liveCode = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
-        // 先找到哪里不可达
-        Stmt entryStmt = cfg.getEntry();
-        if(entryStmt==null) {
-            return deadCode;
-        }
-        // 应该先找活的代码，死的是取相反值
-        Queue<Stmt>stmtQueue=new LinkedList<>();
-        stmtQueue.add(entryStmt);
-        while(!stmtQueue.isEmpty()) {
-            Stmt stmt=stmtQueue.remove();
-            if(liveCode.contains(stmt)) {
-                continue;
+        // statements which are reached, indexed by Stmt.getIndex()
+        BitSet reached = new BitSet(cfg.getNumberOfNodes());
+        Deque<Stmt> workList = new ArrayDeque<>();
+        Stmt entry = cfg.getEntry();
+        reached.set(entry.getIndex());
+        workList.push(entry);
+        while (!workList.isEmpty()) {
+            Stmt stmt = workList.pop();
+            if (stmt instanceof AssignStmt<?, ?> assign
+                    && assign.getLValue() instanceof Var var
+                    && !liveVars.getOutFact(stmt).contains(var)
+                    && hasNoSideEffect(assign.getRValue())) {
+                sink.accept(stmt);
             }
-            // 把该语句添加进去
-            liveCode.add(stmt);
-            if(stmt instanceof If) {
-                ConditionExp exp = ((If)stmt).getCondition();
-                Value value = ConstantPropagation.evaluate(exp,constants.getInFact(stmt));
-                if(value.isConstant()){
-                    if(value.getConstant() == 0){
-                        for(Edge<Stmt> edge:cfg.getOutEdgesOf(stmt)){
-                            if(edge.getKind() == Edge.Kind.IF_FALSE){
-                                // 把活的那个添加进去
-                                //liveCode.add(edge.getTarget());
-                                stmtQueue.add(edge.getTarget());
-                            }
-                        }
-                    }else{
-                        for(Edge<Stmt> edge:cfg.getOutEdgesOf(stmt)){
-                            if(edge.getKind() == Edge.Kind.IF_TRUE){
-                                //liveCode.add(edge.getTarget());
-                                stmtQueue.add(edge.getTarget());
-                            }
-                        }
-                    }
-                }else{
-                    // 这里不是固定的，就都添加进去
-                    cfg.getOutEdgesOf(stmt).forEach(edge->{
-                        //liveCode.add(edge.getTarget());
-                        stmtQueue.add(edge.getTarget());
-                    });
-                }
-            }else if(stmt instanceof SwitchStmt) {
-                SwitchStmt t=(SwitchStmt)stmt;
-                Value value=ConstantPropagation.evaluate(t.getVar(),constants.getInFact(stmt));
-                if(value.isConstant()){
-                    boolean f=false;
-                    for(Edge<Stmt> edge:cfg.getOutEdgesOf(stmt)){
-                        if(edge.getKind() == Edge.Kind.SWITCH_CASE){
-                            int num=edge.getCaseValue();
-                            if(value.getConstant() == num){
-                                f=true;
-                                //liveCode.add(edge.getTarget());
-                                stmtQueue.add(edge.getTarget());
-                            }
-                        }
-                    }
-                    if(!f){
-                        //liveCode.add(((SwitchStmt) stmt).getDefaultTarget());
-                        stmtQueue.add(((SwitchStmt) stmt).getDefaultTarget());
-                    }
-                }else{
-                    // switch语句不是固定的
-                    for(Edge<Stmt> edge:cfg.getOutEdgesOf(stmt)){
-                        //liveCode.add(edge.getTarget());
-                        stmtQueue.add(edge.getTarget());
-                    }
+            for (Stmt succ : getReachableSuccsOf(cfg, stmt, constants)) {
+                if (!reached.get(succ.getIndex())) {
+                    reached.set(succ.getIndex());
+                    workList.push(succ);
                 }
-            }else{
-                // 不是分支语句，就把所有后续的语句都添加进去
-                //liveCode.add(t);
-                stmtQueue.addAll(cfg.getSuccsOf(stmt));
-
             }
         }
-        // 已经找到了所有的活语句
-        // 不在活语句的加入到死代码中
-        for(Stmt stmt:cfg.getNodes()){
-            if(!liveCode.contains(stmt)) {
-                deadCode.add(stmt);
+        for (Stmt stmt : cfg) {
+            if (!reached.get(stmt.getIndex())) {
+                sink.accept(stmt);
             }
         }
+    }
 
-        // 接下来寻找无用赋值语句
-        for(Stmt stmt:cfg.getNodes()){
-            if(stmt instanceof AssignStmt) {
-                AssignStmt t=(AssignStmt)stmt;
-                LValue lvalue = t.getLValue();
-                RValue rvalue = t.getRValue();
-                if(!liveVars.getOutFact(stmt).contains((Var)lvalue)) {
-                    if(hasNoSideEffect(rvalue)) {
-                        deadCode.add(stmt);
+    /**
+     * @return the successors of given statement which can be reached
+     * under the constants at the statement, i.e., only the taken branch
+     * of a conditional or switch statement whose condition is a constant.
+     */
+    private static Collection<Stmt> getReachableSuccsOf(
+            CFG<Stmt> cfg, Stmt stmt, DataflowResult<Stmt, CPFact> constants) {
+        if (stmt instanceof If ifStmt) {
+            Value cond = ConstantPropagation.evaluate(
+                    ifStmt.getCondition(), constants.getInFact(stmt));
+            if (cond.isConstant()) {
+                Edge.Kind taken = cond.getConstant() == 0
+                        ? Edge.Kind.IF_FALSE : Edge.Kind.IF_TRUE;
+                List<Stmt> succs = new ArrayList<>(1);
+                for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                    if (edge.getKind() == taken) {
+                        succs.add(edge.getTarget());
+                    }
+                }
+                return succs;
+            }
+        } else if (stmt instanceof SwitchStmt switchStmt) {
+            Value var = ConstantPropagation.evaluate(
+                    switchStmt.getVar(), constants.getInFact(stmt));
+            if (var.isConstant()) {
+                List<Stmt> succs = new ArrayList<>(1);
+                for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                    if (edge.isSwitchCase()
+                            && edge.getCaseValue() == var.getConstant()) {
+                        succs.add(edge.getTarget());
                     }
                 }
+                if (succs.isEmpty()) {
+                    succs.add(switchStmt.getDefaultTarget());
+                }
+                return succs;
             }
         }
-//        Queue<Stmt> stmtQueue = new LinkedList<>();
-//        stmtQueue.add(entryStmt);
-//        while(!stmtQueue.isEmpty()) {
-//            entryStmt = stmtQueue.remove();
-//            if(deadCode.contains(entryStmt)) {
-//                //stmtQueue.addAll(cfg.getSuccsOf(entryStmt));
-//                continue;
-//            }
-//
-//            if(deadCode.containsAll(cfg.getPredsOf(entryStmt))){
-//                // 一个语句的所有前面的语句都是死代码，该语句也是死代码
-//                deadCode.add(entryStmt);
-//            }
-//            if(entryStmt instanceof If){
-//                ConditionExp exp = ((If)entryStmt).getCondition();
-//                Value value = ConstantPropagation.evaluate(exp,constants.getInFact(entryStmt));
-//                if(value.isConstant()){
-//                    if(value.getConstant() == 0){
-//                        // 这里是为假，为真的语句就添加到死代码里面
-//                        for(Edge<Stmt> edge:cfg.getOutEdgesOf(entryStmt)){
-//                            if(edge.getKind() == Edge.Kind.IF_TRUE){
-//                                deadCode.add(edge.getTarget());
-//                                // 把所有的都添加进去
-//                                stmtQueue.addAll(cfg.getSuccsOf(entryStmt));
-//                            }
-//                        }
-//                    }else{
-//                        for(Edge<Stmt> edge:cfg.getOutEdgesOf(entryStmt)){
-//                            if(edge.getKind() == Edge.Kind.IF_FALSE){
-//                                deadCode.add(edge.getTarget());
-//                                stmtQueue.addAll(cfg.getSuccsOf(entryStmt));
-//                            }
-//                        }
-//                    }
-//                }
-//            }
-//            if(entryStmt instanceof SwitchStmt){
-//                SwitchStmt t=(SwitchStmt)entryStmt;
-//                Value value=ConstantPropagation.evaluate(t.getVar(),constants.getInFact(entryStmt));
-//                for(Edge<Stmt> edge:cfg.getOutEdgesOf(entryStmt)){
-//                    if(edge.getKind() == Edge.Kind.SWITCH_CASE){
-//                        int num=edge.getCaseValue();
-//
-//                    }
-//                }
-//            }
-//        }
+        return cfg.getSuccsOf(stmt);
+    }
 
-        return deadCode;
+    /**
+     * @return the statements of given CFG whose indexes are in given bit set,
+     * in the order of their indexes.
+     */
+    private static Set<Stmt> toSet(CFG<Stmt> cfg, BitSet stmts) {
+        Stmt[] nodes = new Stmt[cfg.getNumberOfNodes()];
+        cfg.forEach(node -> nodes[node.getIndex()] = node);
+        Set<Stmt> set = Sets.newHybridOrderedSet();
+        for (int i = stmts.nextSetBit(0); i >= 0; i = stmts.nextSetBit(i + 1)) {
+            set.add(nodes[i]);
+        }
+        return set;
     }
 
     /**
@@ -0,0 +1,267 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.defuse.DefUse;
+import pascal.taie.analysis.defuse.DefUseAnalysis;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+import pascal.taie.util.collection.SetQueue;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Sparse conditional constant propagation, which computes the same kind
+ * of results as {@link ConstantPropagation}, but propagates values along
+ * def-use chains instead of moving whole facts through every statement,
+ * and only visits the statements that are reachable via the CFG edges
+ * which can be taken, given the constant conditions of the branches.
+ * <p>
+ * As the IR is not in SSA form, the value of a variable at a statement
+ * is the meet of the values computed by the definitions which reach the
+ * statement (and have been visited). Compared with the dense analysis,
+ * the results are more precise for the variables defined in unreachable
+ * branches, and the statements which are unreachable have empty facts.
+ * <p>
+ * Only the values of the definitions are kept, and the facts of
+ * the statements are computed from them when the facts are queried.
+ */
+class SparseConstantPropagation {
+
+    private final ConstantPropagation cp;
+
+    private final CFG<Stmt> cfg;
+
+    private final DefUse defUse;
+
+    /**
+     * The values of the variables at the entry.
+     */
+    private final CPFact boundaryFact;
+
+    /**
+     * The value computed by each definition, indexed by statement index.
+     */
+    private final Value[] defValues;
+
+    /**
+     * Nodes which are reachable via the edges that can be taken.
+     */
+    private final BitSet executable;
+
+    private final Queue<Stmt> workList = new SetQueue<>();
+
+    SparseConstantPropagation(ConstantPropagation cp, CFG<Stmt> cfg) {
+        this.cp = cp;
+        this.cfg = cfg;
+        this.defUse = DefUseAnalysis.getDefUse(cfg.getIR());
+        this.boundaryFact = cp.newBoundaryFact(cfg);
+        this.defValues = new Value[cfg.getIR().getStmts().size()];
+        Arrays.fill(defValues, Value.getUndef());
+        this.executable = new BitSet(cfg.getNumberOfNodes());
+    }
+
+    DataflowResult<Stmt, CPFact> solve() {
+        propagate();
+        return new DataflowResult<>(this::getInFact, this::getOutFact);
+    }
+
+    /**
+     * @return the variable defined by given statement, or null if
+     * it does not define a variable.
+     */
+    private static Var getDefVar(Stmt stmt) {
+        return stmt instanceof DefinitionStmt<?, ?> defStmt &&
+                defStmt.getLValue() instanceof Var var ? var : null;
+    }
+
+    /**
+     * @return the value of given variable at given statement, i.e.,
+     * the meet of the values of the definitions that reach the statement.
+     */
+    private Value getValue(Stmt stmt, Var var) {
+        Value value = defUse.isEntryReaching(stmt, var) ?
+                boundaryFact.get(var) : Value.getUndef();
+        for (Stmt def : defUse.getDefs(stmt, var)) {
+            value = cp.meetValue(value, defValues[def.getIndex()]);
+        }
+        return value;
+    }
+
+    private void propagate() {
+        markExecutable(cfg.getEntry());
+        while (!workList.isEmpty()) {
+            Stmt stmt = workList.poll();
+            if (getDefVar(stmt) != null) {
+                DefinitionStmt<?, ?> defStmt = (DefinitionStmt<?, ?>) stmt;
+                int def = stmt.getIndex();
+                Value value = cp.meetValue(defValues[def],
+                        ConstantPropagation.evaluate(defStmt.getRValue(),
+                                var -> getValue(stmt, var)));
+                if (!value.equals(defValues[def])) {
+                    defValues[def] = value;
+                    for (Stmt use : defUse.getUses(stmt)) {
+                        if (executable.get(use.getIndex())) {
+                            workList.add(use);
+                        }
+                    }
+                }
+            }
+            for (Edge<Stmt> edge : getFeasibleOutEdges(stmt)) {
+                markExecutable(edge.getTarget());
+            }
+        }
+    }
+
+    private void markExecutable(Stmt stmt) {
+        if (!executable.get(stmt.getIndex())) {
+            executable.set(stmt.getIndex());
+            workList.add(stmt);
+        }
+    }
+
+    /**
+     * @return the out edges of given statement which can be taken.
+     * Like {@code DeadCodeDetection}, all the out edges of a branch
+     * are considered feasible unless its condition is a constant.
+     */
+    private Iterable<Edge<Stmt>> getFeasibleOutEdges(Stmt stmt) {
+        if (stmt instanceof If ifStmt) {
+            Value cond = ConstantPropagation.evaluate(
+                    ifStmt.getCondition(), var -> getValue(stmt, var));
+            if (cond.isConstant()) {
+                Edge.Kind kind = cond.getConstant() == 0 ?
+                        Edge.Kind.IF_FALSE : Edge.Kind.IF_TRUE;
+                return cfg.getOutEdgesOf(stmt)
+                        .stream()
+                        .filter(edge -> edge.getKind() == kind)
+                        .toList();
+            }
+        } else if (stmt instanceof SwitchStmt switchStmt) {
+            Value var = getValue(stmt, switchStmt.getVar());
+            if (var.isConstant()) {
+                int value = var.getConstant();
+                List<Edge<Stmt>> cases = cfg.getOutEdgesOf(stmt)
+                        .stream()
+                        .filter(edge -> edge.getKind() == Edge.Kind.SWITCH_CASE
+                                && edge.getCaseValue() == value)
+                        .toList();
+                return !cases.isEmpty() ? cases : cfg.getOutEdgesOf(stmt)
+                        .stream()
+                        .filter(edge -> edge.getKind() == Edge.Kind.SWITCH_DEFAULT)
+                        .toList();
+            }
+        }
+        return cfg.getOutEdgesOf(stmt);
+    }
+
+    /**
+     * @return the IN fact of given node, or null if it is not in the CFG.
+     * The fact is computed by walking back from the node over the
+     * executable nodes until a definition of (or the entry value of)
+     * each variable is found, where the definitions found for the same
+     * variable are met together. Like the dense analysis, a variable
+     * has the meet of the values of the definitions which reach the node.
+     */
+    private CPFact getInFact(Stmt node) {
+        if (!cfg.hasNode(node)) {
+            return null;
+        }
+        CPFact in = cp.newInitialFact(cfg);
+        if (cfg.isEntry(node) || !executable.get(node.getIndex())) {
+            return in;
+        }
+        int varCount = cfg.getIR().getVars().size();
+        // variables whose definitions have been searched at each node
+        BitSet[] searched = new BitSet[cfg.getNumberOfNodes()];
+        Deque<Stmt> nodes = new ArrayDeque<>();
+        Deque<BitSet> pending = new ArrayDeque<>();
+        BitSet all = new BitSet(varCount);
+        all.set(0, varCount);
+        for (Stmt pred : cfg.getPredsOf(node)) {
+            if (executable.get(pred.getIndex())) {
+                nodes.push(pred);
+                pending.push(all);
+            }
+        }
+        while (!nodes.isEmpty()) {
+            Stmt n = nodes.pop();
+            BitSet vars = (BitSet) pending.pop().clone();
+            int index = n.getIndex();
+            if (searched[index] == null) {
+                searched[index] = new BitSet(varCount);
+            }
+            vars.andNot(searched[index]);
+            if (vars.isEmpty()) {
+                continue;
+            }
+            searched[index].or(vars);
+            if (cfg.isEntry(n)) {
+                for (Var var : boundaryFact.keySet()) {
+                    if (vars.get(var.getIndex())) {
+                        in.update(var, cp.meetValue(in.get(var), boundaryFact.get(var)));
+                    }
+                }
+                continue;
+            }
+            Var def = getDefVar(n);
+            if (def != null && vars.get(def.getIndex())) {
+                in.update(def, cp.meetValue(in.get(def), defValues[index]));
+                vars.clear(def.getIndex());
+            }
+            for (Stmt pred : cfg.getPredsOf(n)) {
+                if (executable.get(pred.getIndex())) {
+                    nodes.push(pred);
+                    pending.push(vars);
+                }
+            }
+        }
+        return in;
+    }
+
+    /**
+     * @return the OUT fact of given node, or null if it is not in the CFG.
+     */
+    private CPFact getOutFact(Stmt node) {
+        if (cfg.hasNode(node) && cfg.isEntry(node)) {
+            return boundaryFact.copy();
+        }
+        CPFact out = getInFact(node);
+        Var var = getDefVar(node);
+        if (out != null && var != null && executable.get(node.getIndex())) {
+            out.update(var, defValues[node.getIndex()]);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.BinaryExp;
+import pascal.taie.ir.exp.BitwiseExp;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.Exp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.ShiftExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.Stmt;
+
+/**
+ * Constant propagation with the transfer functions precompiled for the
+ * statements of a specific CFG.
+ * <p>
+ * Each statement is compiled once into a {@link Plan}, which records the
+ * variable defined by the statement, and the operation computing its value,
+ * e.g., "x = y + z" or "x = NAC". Thus, {@link #transferNode} does not need
+ * to inspect the statement and its expressions on every visit, and the
+ * evaluation of all statements goes through the same code.
+ * The results are the same as {@link ConstantPropagation#transferNode}.
+ */
+final class TransferPlans implements DataflowAnalysis<Stmt, CPFact> {
+
+    // operations of the plans
+
+    private static final int NAC = 0;
+
+    private static final int CONSTANT = 1;
+
+    private static final int COPY = 2;
+
+    private static final int ADD = 3;
+
+    private static final int SUB = 4;
+
+    private static final int MUL = 5;
+
+    private static final int DIV = 6;
+
+    private static final int REM = 7;
+
+    private static final int EQ = 8;
+
+    private static final int NE = 9;
+
+    private static final int LT = 10;
+
+    private static final int LE = 11;
+
+    private static final int GT = 12;
+
+    private static final int GE = 13;
+
+    private static final int SHL = 14;
+
+    private static final int SHR = 15;
+
+    private static final int USHR = 16;
+
+    private static final int OR = 17;
+
+    private static final int XOR = 18;
+
+    private static final int AND = 19;
+
+    /**
+     * Binary operation which is not folded, e.g., comparison.
+     */
+    private static final int OTHER = 20;
+
+    private final ConstantPropagation cp;
+
+    /**
+     * Plans of the statements, indexed by {@link Stmt#getIndex()}.
+     */
+    private final Plan[] plans;
+
+    TransferPlans(ConstantPropagation cp, CFG<Stmt> cfg) {
+        this.cp = cp;
+        int size = 0;
+        for (Stmt stmt : cfg) {
+            size = Math.max(size, stmt.getIndex() + 1);
+        }
+        plans = new Plan[size];
+        for (Stmt stmt : cfg) {
+            plans[stmt.getIndex()] = compile(stmt);
+        }
+    }
+
+    @Override
+    public boolean transferNode(Stmt stmt, CPFact in, CPFact out) {
+        Plan plan = plans[stmt.getIndex()];
+        Var lhs = plan.lhs;
+        Value gen = lhs != null ? plan.evaluate(in) : null;
+        boolean changed = false;
+        for (Var var : in.keySet()) {
+            if (!var.equals(lhs)) {
+                changed |= out.update(var, in.get(var));
+            }
+        }
+        if (lhs != null) {
+            changed |= out.update(lhs, gen);
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean isForward() {
+        return cp.isForward();
+    }
+
+    @Override
+    public CPFact newBoundaryFact(CFG<Stmt> cfg) {
+        return cp.newBoundaryFact(cfg);
+    }
+
+    @Override
+    public CPFact newInitialFact() {
+        return cp.newInitialFact();
+    }
+
+    @Override
+    public CPFact newInitialFact(CFG<Stmt> cfg) {
+        return cp.newInitialFact(cfg);
+    }
+
+    @Override
+    public void meetInto(CPFact fact, CPFact target) {
+        cp.meetInto(fact, target);
+    }
+
+    @Override
+    public void widenInto(Stmt stmt, CPFact fact, CPFact target) {
+        cp.widenInto(stmt, fact, target);
+    }
+
+    @Override
+    public boolean needTransferEdge(Edge<Stmt> edge) {
+        return cp.needTransferEdge(edge);
+    }
+
+    @Override
+    public CPFact transferEdge(Edge<Stmt> edge, CPFact nodeFact) {
+        return cp.transferEdge(edge, nodeFact);
+    }
+
+    /**
+     * Compiles the transfer function of given statement.
+     */
+    private static Plan compile(Stmt stmt) {
+        if (stmt instanceof DefinitionStmt<?, ?> defStmt &&
+                defStmt.getLValue() instanceof Var lhs) {
+            Exp rhs = defStmt.getRValue();
+            if (rhs instanceof Var var) {
+                return new Plan(lhs, COPY, var, null, null, false);
+            } else if (rhs instanceof IntLiteral literal) {
+                return new Plan(lhs, CONSTANT, null, null,
+                        Value.makeConstant(literal.getValue()), false);
+            } else if (rhs instanceof BinaryExp binary) {
+                Var x = binary.getOperand1();
+                Var y = binary.getOperand2();
+                return new Plan(lhs, opcode(binary), x, y, null,
+                        ConstantPropagation.canHoldInt(x) &&
+                                ConstantPropagation.canHoldInt(y));
+            } else {
+                return new Plan(lhs, NAC, null, null, null, false);
+            }
+        }
+        return new Plan(null, NAC, null, null, null, false);
+    }
+
+    private static int opcode(BinaryExp exp) {
+        if (exp instanceof ArithmeticExp arithmetic) {
+            return switch (arithmetic.getOperator()) {
+                case ADD -> ADD;
+                case SUB -> SUB;
+                case MUL -> MUL;
+                case DIV -> DIV;
+                case REM -> REM;
+            };
+        } else if (exp instanceof ConditionExp condition) {
+            return switch (condition.getOperator()) {
+                case EQ -> EQ;
+                case NE -> NE;
+                case LT -> LT;
+                case LE -> LE;
+                case GT -> GT;
+                case GE -> GE;
+            };
+        } else if (exp instanceof ShiftExp shift) {
+            return switch (shift.getOperator()) {
+                case SHL -> SHL;
+                case SHR -> SHR;
+                case USHR -> USHR;
+            };
+        } else if (exp instanceof BitwiseExp bitwise) {
+            return switch (bitwise.getOperator()) {
+                case OR -> OR;
+                case XOR -> XOR;
+                case AND -> AND;
+            };
+        } else {
+            return OTHER;
+        }
+    }
+
+    /**
+     * Precompiled transfer function of a statement.
+     *
+     * @param lhs        the variable defined by the statement, or null if
+     *                   the statement does not define a variable
+     * @param op         the operation computing the value of lhs
+     * @param operand1   the copied variable, or the first operand of
+     *                   a binary operation
+     * @param operand2   the second operand of a binary operation
+     * @param constant   the value of a constant operation
+     * @param intOperands whether both operands of a binary operation
+     *                   can hold integer values
+     */
+    private record Plan(Var lhs, int op, Var operand1, Var operand2,
+                        Value constant, boolean intOperands) {
+
+        private Value evaluate(CPFact in) {
+            switch (op) {
+                case NAC:
+                    return Value.getNAC();
+                case CONSTANT:
+                    return constant;
+                case COPY:
+                    return in.get(operand1);
+            }
+            Value v1 = in.get(operand1);
+            Value v2 = in.get(operand2);
+            if (v1.isConstant() && v2.isConstant()) {
+                return intOperands ?
+                        fold(v1.getConstant(), v2.getConstant()) :
+                        Value.getUndef();
+            } else if (v1.isNAC() || v2.isNAC()) {
+                return Value.getNAC();
+            } else {
+                return Value.getUndef();
+            }
+        }
+
+        private Value fold(int x, int y) {
+            return switch (op) {
+                case ADD -> Value.makeConstant(x + y);
+                case SUB -> Value.makeConstant(x - y);
+                case MUL -> Value.makeConstant(x * y);
+                case DIV -> y == 0 ? Value.getUndef() : Value.makeConstant(x / y);
+                case REM -> y == 0 ? Value.getUndef() : Value.makeConstant(x % y);
+                case EQ -> Value.makeConstant(x == y ? 1 : 0);
+                case NE -> Value.makeConstant(x != y ? 1 : 0);
+                case LT -> Value.makeConstant(x < y ? 1 : 0);
+                case LE -> Value.makeConstant(x <= y ? 1 : 0);
+                case GT -> Value.makeConstant(x > y ? 1 : 0);
+                case GE -> Value.makeConstant(x >= y ? 1 : 0);
+                case SHL -> Value.makeConstant(x << y);
+                case SHR -> Value.makeConstant(x >> y);
+                case USHR -> Value.makeConstant(x >>> y);
+                case OR -> Value.makeConstant(x | y);
+                case XOR -> Value.makeConstant(x ^ y);
+                case AND -> Value.makeConstant(x & y);
+                default -> Value.getNAC();
+            };
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.util.Indexable;
+
+import java.util.function.IntFunction;
+
+/**
+ * Represents set-like data-flow facts as bit vectors, where each element
+ * is identified by its index, e.g., {@link pascal.taie.ir.exp.Var#getIndex()}.
+ * <p>
+ * Union, intersection, comparison, copy and gen/kill transfer between
+ * facts of this kind are performed word by word instead of hashing
+ * individual elements.
+ * This class can be mixed with plain {@link SetFact}s, in which case
+ * the operations fall back to the element-wise ones.
+ *
+ * @param <E> type of elements
+ */
+public class BitSetFact<E extends Indexable> extends SetFact<E> {
+
+    /**
+     * @param elements maps indexes back to the elements of this fact
+     * @param capacity number of elements in the universe, i.e.,
+     *                 (max index + 1). This is only a hint, and
+     *                 the fact grows if necessary.
+     */
+    public BitSetFact(IntFunction<E> elements, int capacity) {
+        super(new IndexBitSet<>(elements, capacity));
+    }
+
+    private BitSetFact(IndexBitSet<E> bits) {
+        super(bits);
+    }
+
+    @Override
+    public boolean setGenKill(SetFact<E> gen, SetFact<E> kill, SetFact<E> other) {
+        if (gen.set instanceof IndexBitSet<E> genBits &&
+                kill.set instanceof IndexBitSet<E> killBits &&
+                other.set instanceof IndexBitSet<E> otherBits) {
+            return ((IndexBitSet<E>) set).setGenKill(genBits, killBits, otherBits);
+        }
+        return super.setGenKill(gen, kill, other);
+    }
+
+    @Override
+    public BitSetFact<E> copy() {
+        return new BitSetFact<>(((IndexBitSet<E>) set).copy());
+    }
+}
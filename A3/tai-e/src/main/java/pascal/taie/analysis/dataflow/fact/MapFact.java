@@ -51,7 +51,19 @@ public class MapFact<K, V> {
      * @param map the map whose mappings are to be placed in this map.
      */
     public MapFact(Map<K, V> map) {
-        this.map = Maps.newHybridMap(map);
+        this(map, true);
+    }
+
+    /**
+     * Constructs a new MapFact backed by specified Map.
+     *
+     * @param map  the map whose mappings are to be placed in this map.
+     * @param copy if true, the mappings are copied to a new map; otherwise,
+     *             this fact is directly backed by the given map, which
+     *             allows subclasses to provide specialized maps.
+     */
+    protected MapFact(Map<K, V> map, boolean copy) {
+        this.map = copy ? Maps.newHybridMap(map) : map;
     }
 
     /**
@@ -48,6 +48,14 @@ public class SetFact<E> {
         this(Collections.emptySet());
     }
 
+    /**
+     * Creates a fact which is directly backed by the given bit set,
+     * without copying. This is used by {@link BitSetFact}.
+     */
+    SetFact(IndexBitSet<E> bits) {
+        set = bits;
+    }
+
     /**
      * @return true if this set contains the specified element, otherwise false.
      */
@@ -127,6 +135,24 @@ public class SetFact<E> {
         union(other);
     }
 
+    /**
+     * Sets the content of this fact to {@code gen ∪ (other - kill)},
+     * i.e., the result of applying a gen/kill transfer function to other fact.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean setGenKill(SetFact<E> gen, SetFact<E> kill, SetFact<E> other) {
+        Set<E> result = Sets.newHybridSet(other.set);
+        result.removeAll(kill.set);
+        result.addAll(gen.set);
+        if (set.equals(result)) {
+            return false;
+        }
+        set.clear();
+        set.addAll(result);
+        return true;
+    }
+
     /**
      * Creates and returns a copy of this fact.
      */
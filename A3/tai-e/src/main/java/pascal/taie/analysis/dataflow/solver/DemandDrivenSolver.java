@@ -0,0 +1,180 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.util.collection.SetQueue;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Solver which computes the facts of a node only when they are queried.
+ * <p>
+ * The facts of a node only depend on the nodes which can reach it in
+ * forward analysis, or which it can reach in backward analysis. Thus,
+ * for each query, this solver only solves the sub-graph of such nodes.
+ * The facts computed for the sub-graph are final, and they are kept
+ * and reused by the subsequent queries, which only solve the nodes
+ * that have not been solved yet.
+ * <p>
+ * This solver is not thread-safe.
+ *
+ * @param <Node> type of CFG nodes
+ * @param <Fact> type of data-flow facts
+ */
+public class DemandDrivenSolver<Node, Fact> implements NodeResult<Node, Fact> {
+
+    private final DataflowAnalysis<Node, Fact> analysis;
+
+    private final CFG<Node> cfg;
+
+    /**
+     * Facts of the solved nodes.
+     */
+    private final DataflowResult<Node, Fact> result;
+
+    /**
+     * Nodes whose facts have been computed. For forward (backward) analysis,
+     * all predecessors (successors) of the solved nodes are also solved.
+     */
+    private final Set<Node> solved = Sets.newHybridSet();
+
+    public DemandDrivenSolver(DataflowAnalysis<Node, Fact> analysis, CFG<Node> cfg) {
+        this.analysis = analysis;
+        this.cfg = cfg;
+        this.result = Solver.newResult(cfg);
+    }
+
+    @Override
+    public Fact getInFact(Node node) {
+        solve(node);
+        return result.getInFact(node);
+    }
+
+    @Override
+    public Fact getOutFact(Node node) {
+        solve(node);
+        return result.getOutFact(node);
+    }
+
+    /**
+     * @return the number of nodes whose facts have been computed so far.
+     */
+    public int getNumberOfSolvedNodes() {
+        return solved.size();
+    }
+
+    /**
+     * Solves the nodes which the facts of given node depend on,
+     * if they have not been solved.
+     */
+    private void solve(Node node) {
+        if (solved.contains(node) || !cfg.hasNode(node)) {
+            return;
+        }
+        boolean forward = analysis.isForward();
+        // collect the unsolved nodes which given node depends on
+        List<Node> nodes = new ArrayList<>();
+        Set<Node> region = Sets.newHybridSet();
+        nodes.add(node);
+        region.add(node);
+        for (int i = 0; i < nodes.size(); ++i) {
+            Node n = nodes.get(i);
+            for (Node dep : forward ? cfg.getPredsOf(n) : cfg.getSuccsOf(n)) {
+                if (!solved.contains(dep) && region.add(dep)) {
+                    nodes.add(dep);
+                }
+            }
+        }
+        // the nodes far from the queried node are collected last,
+        // and visiting them first reduces the iterations
+        Collections.reverse(nodes);
+        Queue<Node> workList = new SetQueue<>();
+        for (Node n : nodes) {
+            if (forward) {
+                result.setInFact(n, analysis.newInitialFact(cfg));
+                if (cfg.isEntry(n)) {
+                    result.setOutFact(n, analysis.newBoundaryFact(cfg));
+                    continue;
+                }
+                result.setOutFact(n, analysis.newInitialFact(cfg));
+            } else {
+                result.setOutFact(n, analysis.newInitialFact(cfg));
+                if (cfg.isExit(n)) {
+                    result.setInFact(n, analysis.newBoundaryFact(cfg));
+                    continue;
+                }
+                result.setInFact(n, analysis.newInitialFact(cfg));
+            }
+            workList.add(n);
+        }
+        if (forward) {
+            solveForward(workList, region);
+        } else {
+            solveBackward(workList, region);
+        }
+        solved.addAll(region);
+    }
+
+    private void solveForward(Queue<Node> workList, Set<Node> region) {
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            Fact in = result.getInFact(node);
+            for (Node pred : cfg.getPredsOf(node)) {
+                analysis.meetInto(result.getOutFact(pred), in);
+            }
+            if (analysis.transferNode(node, in, result.getOutFact(node))) {
+                for (Node succ : cfg.getSuccsOf(node)) {
+                    if (region.contains(succ)) {
+                        workList.add(succ);
+                    }
+                }
+            }
+        }
+    }
+
+    private void solveBackward(Queue<Node> workList, Set<Node> region) {
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            Fact out = result.getOutFact(node);
+            for (Node succ : cfg.getSuccsOf(node)) {
+                analysis.meetInto(result.getInFact(succ), out);
+            }
+            if (analysis.transferNode(node, result.getInFact(node), out)) {
+                for (Node pred : cfg.getPredsOf(node)) {
+                    if (region.contains(pred)) {
+                        workList.add(pred);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -25,6 +25,18 @@ package pascal.taie.analysis.dataflow.solver;
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.SetQueue;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.Set;
 
 /**
  * Base class for data-flow analysis solver, which provides common
@@ -46,74 +58,180 @@ public abstract class Solver<Node, Fact> {
      */
     public static <Node, Fact> Solver<Node, Fact> makeSolver(
             DataflowAnalysis<Node, Fact> analysis) {
-        return new WorkListSolver<>(analysis);
+        return makeSolver(analysis, null);
     }
 
     /**
-     * Starts this solver on the given CFG.
+     * Static factory method to create a new solver of given kind
+     * for given analysis.
      *
-     * @param cfg control-flow graph where the analysis is performed on
-     * @return the analysis result
+     * @param kind kind of the solver, i.e., "worklist", "wto" or "block".
+     *             If it is null, then the work-list solver is created.
      */
-    public DataflowResult<Node, Fact> solve(CFG<Node> cfg) {
-        DataflowResult<Node, Fact> result = initialize(cfg);
-        doSolve(cfg, result);
-        return result;
+    public static <Node, Fact> Solver<Node, Fact> makeSolver(
+            DataflowAnalysis<Node, Fact> analysis, @Nullable String kind) {
+        if (kind == null) {
+            return new WorkListSolver<>(analysis);
+        }
+        return switch (kind) {
+            case "worklist" -> new WorkListSolver<>(analysis);
+            case "wto" -> new WTOSolver<>(analysis);
+            case "block" -> new BlockSolver<>(analysis);
+            default -> throw new ConfigException("Unknown solver: " + kind);
+        };
     }
 
     /**
-     * Creates and initializes a new data-flow result for given CFG.
+     * Static factory method to create a new solver of given kind for given
+     * analysis, which records the statistics of solving each CFG in
+     * the {@link SolverStatistics} of given analysis ID.
      *
-     * @return the initialized data-flow result
+     * @param kind kind of the solver, same as {@link #makeSolver(DataflowAnalysis, String)}.
+     * @param id   ID of the analysis.
      */
-    private DataflowResult<Node, Fact> initialize(CFG<Node> cfg) {
-        DataflowResult<Node, Fact> result = new DataflowResult<>();
-        if (analysis.isForward()) {
-            initializeForward(cfg, result);
-        } else {
-            initializeBackward(cfg, result);
-        }
-        return result;
+    public static <Node, Fact> Solver<Node, Fact> makeMonitoredSolver(
+            DataflowAnalysis<Node, Fact> analysis, @Nullable String kind, String id) {
+        return new MonitoredSolver<>(analysis, kind, SolverStatistics.get(id));
     }
 
-    protected void initializeForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        // TODO - finish me
-        Node entryNode = cfg.getEntry();
-        result.setOutFact(entryNode,analysis.newBoundaryFact(cfg));
+    /**
+     * Starts this solver on the given CFG.
+     *
+     * @param cfg control-flow graph where the analysis is performed on
+     * @return the analysis result
+     */
+    public abstract DataflowResult<Node, Fact> solve(CFG<Node> cfg);
 
-        for(Node node:cfg) {
-            result.setInFact(node, analysis.newInitialFact());
-            if(!node.equals(entryNode)) {
-                result.setOutFact(node,analysis.newInitialFact());
+    /**
+     * Updates the result of solving a CFG after the CFG is edited, by
+     * re-propagating the facts from the nodes affected by the edits,
+     * and keeping the facts of the other nodes.
+     * <p>
+     * Adding edges (nodes) only makes more facts flow into the nodes,
+     * thus the existing facts are kept and propagated further. Removing
+     * edges may make the facts of the nodes which are reachable from the
+     * removed edges in the direction of the analysis too large, thus
+     * the facts of such nodes are reset and recomputed.
+     * The facts of the removed nodes are left as they are.
+     *
+     * @param cfg          the edited CFG
+     * @param result       the result of solving the CFG before the edits,
+     *                     which is updated in place, thus it must not be
+     *                     a read-only result
+     * @param addedEdges   the edges added to the CFG, including the edges
+     *                     of the added nodes
+     * @param removedEdges the edges removed from the CFG, including the
+     *                     edges of the removed nodes
+     */
+    public void update(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                       Collection<? extends Edge<Node>> addedEdges,
+                       Collection<? extends Edge<Node>> removedEdges) {
+        boolean forward = analysis.isForward();
+        Node boundary = forward ? cfg.getEntry() : cfg.getExit();
+        // the nodes whose facts are reset, i.e., the ones reachable
+        // from the removed edges in the edited CFG
+        Set<Node> reset = Sets.newHybridSet();
+        Deque<Node> stack = new ArrayDeque<>();
+        for (Edge<Node> edge : removedEdges) {
+            Node node = forward ? edge.getTarget() : edge.getSource();
+            if (cfg.hasNode(node) && reset.add(node)) {
+                stack.push(node);
             }
         }
-    }
-
-    protected void initializeBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        // TODO - finish me
-        for(Node node:cfg){
-            if(cfg.isExit(node)){
-                result.setInFact(node, analysis.newBoundaryFact(cfg));
-                result.setOutFact(node, analysis.newBoundaryFact(cfg));
-            }else{
-                result.setInFact(node, analysis.newInitialFact());
-                result.setOutFact(node, analysis.newInitialFact());
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            for (Node next : forward ? cfg.getSuccsOf(node) : cfg.getPredsOf(node)) {
+                if (reset.add(next)) {
+                    stack.push(next);
+                }
+            }
+        }
+        Queue<Node> workList = new SetQueue<>();
+        for (Node node : cfg) {
+            if (reset.contains(node) || result.getInFact(node) == null) {
+                // the node is affected by removed edges, or is added
+                if (node.equals(boundary)) {
+                    // same as initializeForward/initializeBackward
+                    setFacts(result, node, analysis.newBoundaryFact(cfg),
+                            forward ? analysis.newInitialFact(cfg)
+                                    : analysis.newBoundaryFact(cfg),
+                            forward);
+                } else {
+                    setFacts(result, node, analysis.newInitialFact(cfg),
+                            analysis.newInitialFact(cfg), forward);
+                    workList.add(node);
+                }
+            }
+        }
+        for (Edge<Node> edge : addedEdges) {
+            Node node = forward ? edge.getTarget() : edge.getSource();
+            if (cfg.hasNode(node) && !node.equals(boundary)) {
+                workList.add(node);
+            }
+        }
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            Fact in = result.getInFact(node);
+            Fact out = result.getOutFact(node);
+            for (Node prev : forward ? cfg.getPredsOf(node) : cfg.getSuccsOf(node)) {
+                analysis.meetInto(forward ? result.getOutFact(prev) : result.getInFact(prev),
+                        forward ? in : out);
+            }
+            if (analysis.transferNode(node, in, out)) {
+                for (Node next : forward ? cfg.getSuccsOf(node) : cfg.getPredsOf(node)) {
+                    if (!next.equals(boundary)) {
+                        workList.add(next);
+                    }
+                }
             }
         }
     }
 
     /**
-     * Solves the data-flow problem for given CFG.
+     * Sets the facts of given node.
+     *
+     * @param flowing the fact flowing out of the node in the direction of
+     *                the analysis, i.e., the OUT (IN) fact in forward
+     *                (backward) analysis
+     * @param other   the other fact of the node
      */
-    private void doSolve(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        if (analysis.isForward()) {
-            doSolveForward(cfg, result);
+    private static <Node, Fact> void setFacts(
+            DataflowResult<Node, Fact> result, Node node,
+            Fact flowing, Fact other, boolean forward) {
+        if (forward) {
+            result.setOutFact(node, flowing);
+            result.setInFact(node, other);
         } else {
-            doSolveBackward(cfg, result);
+            result.setInFact(node, flowing);
+            result.setOutFact(node, other);
         }
     }
 
-    protected abstract void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
+    /**
+     * Creates an empty data-flow result for given CFG. The facts of
+     * {@link Stmt} nodes are kept in arrays indexed by {@link Stmt#getIndex()}.
+     */
+    static <Node, Fact> DataflowResult<Node, Fact> newResult(CFG<Node> cfg) {
+        if (cfg.getEntry() instanceof Stmt) {
+            return new DataflowResult<>(node -> ((Stmt) node).getIndex(),
+                    cfg.getNumberOfNodes());
+        }
+        return new DataflowResult<>();
+    }
 
-    protected abstract void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
+    /**
+     * Hook called when given number of nodes are added to the work list.
+     * It does nothing by default, and the solvers created by
+     * {@link MonitoredSolver} override it to count the nodes.
+     */
+    protected void countPushes(int count) {
+    }
+
+    /**
+     * Hook called when a node is polled from the work list.
+     * It does nothing by default, and the solvers created by
+     * {@link MonitoredSolver} override it to count the nodes.
+     */
+    protected void countPop() {
+    }
 }
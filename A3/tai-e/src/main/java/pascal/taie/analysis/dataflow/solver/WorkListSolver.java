@@ -25,11 +25,14 @@ package pascal.taie.analysis.dataflow.solver;
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.util.collection.SetQueue;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Queue;
 
-class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
+class WorkListSolver<Node, Fact> extends NodeSolver<Node, Fact> {
 
     WorkListSolver(DataflowAnalysis<Node, Fact> analysis) {
         super(analysis);
@@ -37,49 +40,54 @@ class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
 
     @Override
     protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        // TODO - finish me
-        Queue<Node> worklist = new LinkedList<>();
-        cfg.forEach(worklist::add);
-
-        while (!worklist.isEmpty()) {
-            Node node = worklist.remove();
-
-            Fact inOut=result.getInFact(node);
-
-            for(Node predNode:cfg.getPredsOf(node)){
-                // 获得前驱节点
-                analysis.meetInto(result.getOutFact(predNode),inOut);
+        RPOWorkList<Node> workList = new RPOWorkList<>(cfg);
+        workList.addAll();
+        countPushes(cfg.getNumberOfNodes());
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            countPop();
+            if (cfg.isEntry(node)) {
+                continue;
             }
-
-            if(analysis.transferNode(node,inOut,result.getOutFact(node))){
-                // true说明发生改变了
-                worklist.add(node);
-
+            Fact in = result.getInFact(node);
+            for (Node pred : cfg.getPredsOf(node)) {
+                analysis.meetInto(result.getOutFact(pred), in);
+            }
+            if (analysis.transferNode(node, in, result.getOutFact(node))) {
+                cfg.getSuccsOf(node).forEach(workList::add);
+                countPushes(cfg.getSuccsOf(node).size());
             }
         }
     }
 
     @Override
     protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        // TODO - finish me
-        boolean flag=true;
-        do{
-            flag=true;
-            for(Node node : cfg.getNodes()){
-                if(!cfg.isExit(node)){
-                    Fact BNode = result.getOutFact(node);
-                    for(Node predNode : cfg.getSuccsOf(node)){
-                        // outB
-                        Fact SNode = result.getInFact(predNode);
-                        analysis.meetInto(SNode,BNode);
-
-                        // inB
-                        if(!analysis.transferNode(node,result.getInFact(node),BNode)){
-                            flag=false;
-                        }
+        // seed the work list in reverse order, so that most nodes
+        // are visited after their successors in the first pass
+        List<Node> nodes = new ArrayList<>(cfg.getNodes());
+        Collections.reverse(nodes);
+        Queue<Node> workList = new SetQueue<>();
+        for (Node node : nodes) {
+            if (!cfg.isExit(node)) {
+                workList.add(node);
+            }
+        }
+        countPushes(workList.size());
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            countPop();
+            Fact out = result.getOutFact(node);
+            for (Node succ : cfg.getSuccsOf(node)) {
+                analysis.meetInto(result.getInFact(succ), out);
+            }
+            if (analysis.transferNode(node, result.getInFact(node), out)) {
+                for (Node pred : cfg.getPredsOf(node)) {
+                    if (!cfg.isExit(pred)) {
+                        workList.add(pred);
+                        countPushes(1);
                     }
                 }
             }
-        }while(!flag);
+        }
     }
 }
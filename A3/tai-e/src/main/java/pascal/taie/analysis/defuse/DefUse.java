@@ -0,0 +1,169 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.defuse;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Def-use and use-def chains of the variables in a method.
+ * <p>
+ * A statement defining a variable is a definition, and a definition
+ * reaches a use if there is a path from the definition to the use
+ * without another definition of the same variable. Besides the
+ * definitions in statements, the value that a variable holds at the
+ * entry of the method (e.g., a parameter) may also reach uses.
+ * <p>
+ * The chains are kept in int arrays (in compressed sparse row format)
+ * over the indexes of the statements, so that the uses of a definition
+ * and the definitions reaching a use can be queried in time linear
+ * to the size of the results.
+ */
+public class DefUse {
+
+    /**
+     * Index of the definitions made at the entry of the method.
+     */
+    static final int ENTRY = -1;
+
+    private final IR ir;
+
+    /**
+     * For definition statement of index i, its uses are
+     * uses[useStarts[i]] ... uses[useStarts[i + 1] - 1].
+     */
+    private final int[] useStarts;
+
+    private final int[] uses;
+
+    /**
+     * For statement of index i, the definitions reaching it are
+     * defs[defStarts[i]] ... defs[defStarts[i + 1] - 1], and defVars
+     * holds the indexes of the variables that the definitions define.
+     */
+    private final int[] defStarts;
+
+    private final int[] defs;
+
+    private final int[] defVars;
+
+    DefUse(IR ir, int[] useStarts, int[] uses,
+           int[] defStarts, int[] defs, int[] defVars) {
+        this.ir = ir;
+        this.useStarts = useStarts;
+        this.uses = uses;
+        this.defStarts = defStarts;
+        this.defs = defs;
+        this.defVars = defVars;
+    }
+
+    /**
+     * @return the statements which use the variable defined by
+     * given statement, and are reachable by the definition.
+     * If the statement defines no variable, or it is not a statement
+     * of the IR (e.g., the entry/exit node of CFG), returns an empty list.
+     */
+    public List<Stmt> getUses(Stmt def) {
+        int index = def.getIndex();
+        if (!isInIR(index)) {
+            return List.of();
+        }
+        return toStmts(uses, useStarts[index], useStarts[index + 1]);
+    }
+
+    /**
+     * @return the definitions of given variable which reach given statement.
+     * The value of the variable at the method entry is excluded,
+     * see {@link #isEntryReaching(Stmt, Var)}.
+     * If the statement is not a statement of the IR (e.g., the entry/exit
+     * node of CFG), returns an empty list.
+     */
+    public List<Stmt> getDefs(Stmt use, Var var) {
+        int index = use.getIndex();
+        if (!isInIR(index)) {
+            return List.of();
+        }
+        int start = defStarts[index], end = defStarts[index + 1];
+        int count = 0;
+        for (int i = start; i < end; ++i) {
+            if (defVars[i] == var.getIndex() && defs[i] != ENTRY) {
+                ++count;
+            }
+        }
+        if (count == end - start) {
+            return toStmts(defs, start, end);
+        }
+        int[] selected = new int[count];
+        count = 0;
+        for (int i = start; i < end; ++i) {
+            if (defVars[i] == var.getIndex() && defs[i] != ENTRY) {
+                selected[count++] = defs[i];
+            }
+        }
+        return toStmts(selected, 0, count);
+    }
+
+    /**
+     * @return true if the value of given variable at the method entry
+     * may reach given statement, otherwise false.
+     */
+    public boolean isEntryReaching(Stmt use, Var var) {
+        int index = use.getIndex();
+        if (!isInIR(index)) {
+            return false;
+        }
+        for (int i = defStarts[index]; i < defStarts[index + 1]; ++i) {
+            if (defs[i] == ENTRY && defVars[i] == var.getIndex()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if given index is the index of a statement in the IR.
+     * The entry/exit nodes of CFG are not in the IR, and their indexes
+     * are out of the range of the chains.
+     */
+    private boolean isInIR(int index) {
+        return 0 <= index && index < defStarts.length - 1;
+    }
+
+    private List<Stmt> toStmts(int[] indexes, int start, int end) {
+        return new AbstractList<>() {
+            @Override
+            public Stmt get(int i) {
+                return ir.getStmt(indexes[start + i]);
+            }
+
+            @Override
+            public int size() {
+                return end - start;
+            }
+        };
+    }
+}
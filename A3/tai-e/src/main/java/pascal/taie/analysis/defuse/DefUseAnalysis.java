@@ -0,0 +1,214 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.defuse;
+
+import pascal.taie.analysis.MethodAnalysis;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.SetQueue;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Queue;
+
+/**
+ * Builds {@link DefUse} for a method by reaching definitions.
+ * <p>
+ * The results are stored in the IR, thus the clients which do not run
+ * this analysis explicitly can obtain the results via {@link #getDefUse(IR)},
+ * which builds the chains of each IR at most once.
+ */
+public class DefUseAnalysis extends MethodAnalysis {
+
+    public static final String ID = "def-use";
+
+    public DefUseAnalysis(AnalysisConfig config) {
+        super(config);
+    }
+
+    @Override
+    public DefUse analyze(IR ir) {
+        return build(ir);
+    }
+
+    /**
+     * @return the def-use chains of given IR, which are built and stored
+     * in the IR if they are not available.
+     */
+    public static DefUse getDefUse(IR ir) {
+        return ir.getResult(ID, () -> build(ir));
+    }
+
+    /**
+     * @return the variable defined by given statement, or null if
+     * it does not define a variable.
+     */
+    private static Var getDefVar(Stmt stmt) {
+        return stmt instanceof DefinitionStmt<?, ?> defStmt &&
+                defStmt.getLValue() instanceof Var var ? var : null;
+    }
+
+    private static DefUse build(IR ir) {
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        int stmtCount = ir.getStmts().size();
+        int varCount = ir.getVars().size();
+        // Definitions are identified by the indexes of the statements,
+        // and the definition of variable v at the entry is stmtCount + v.
+        BitSet[] defsOfVar = new BitSet[varCount];
+        for (int v = 0; v < varCount; ++v) {
+            defsOfVar[v] = new BitSet();
+            defsOfVar[v].set(stmtCount + v);
+        }
+        for (Stmt stmt : ir) {
+            Var var = getDefVar(stmt);
+            if (var != null) {
+                defsOfVar[var.getIndex()].set(stmt.getIndex());
+            }
+        }
+        BitSet[] reachingDefs = computeReachingDefs(cfg, defsOfVar);
+
+        // use-def chains, and the number of uses of each definition
+        int[] defStarts = new int[stmtCount + 1];
+        int[] useCounts = new int[stmtCount];
+        BitSet useDefs = new BitSet();
+        IntList defs = new IntList();
+        IntList defVars = new IntList();
+        for (Stmt stmt : ir) {
+            BitSet reaching = reachingDefs[stmt.getIndex()];
+            BitSet usedVars = new BitSet(varCount);
+            for (RValue use : stmt.getUses()) {
+                if (use instanceof Var var) {
+                    usedVars.set(var.getIndex());
+                }
+            }
+            for (int v = usedVars.nextSetBit(0); v >= 0; v = usedVars.nextSetBit(v + 1)) {
+                useDefs.clear();
+                useDefs.or(defsOfVar[v]);
+                useDefs.and(reaching);
+                for (int d = useDefs.nextSetBit(0); d >= 0; d = useDefs.nextSetBit(d + 1)) {
+                    if (d < stmtCount) {
+                        defs.add(d);
+                        ++useCounts[d];
+                    } else {
+                        defs.add(DefUse.ENTRY);
+                    }
+                    defVars.add(v);
+                }
+            }
+            defStarts[stmt.getIndex() + 1] = defs.size();
+        }
+        // def-use chains, by inverting the use-def chains
+        int[] useStarts = new int[stmtCount + 1];
+        for (int i = 0; i < stmtCount; ++i) {
+            useStarts[i + 1] = useStarts[i] + useCounts[i];
+        }
+        int[] uses = new int[useStarts[stmtCount]];
+        int[] next = useStarts.clone();
+        for (int s = 0; s < stmtCount; ++s) {
+            for (int i = defStarts[s]; i < defStarts[s + 1]; ++i) {
+                int d = defs.get(i);
+                if (d != DefUse.ENTRY) {
+                    uses[next[d]++] = s;
+                }
+            }
+        }
+        return new DefUse(ir, useStarts, uses,
+                defStarts, defs.toArray(), defVars.toArray());
+    }
+
+    /**
+     * Computes the definitions reaching each node of given CFG by
+     * a (bit-vector) work-list algorithm.
+     *
+     * @return the definitions reaching each node, indexed by node index.
+     */
+    private static BitSet[] computeReachingDefs(CFG<Stmt> cfg, BitSet[] defsOfVar) {
+        int stmtCount = cfg.getIR().getStmts().size();
+        BitSet[] ins = new BitSet[cfg.getNumberOfNodes()];
+        BitSet[] outs = new BitSet[cfg.getNumberOfNodes()];
+        for (Stmt node : cfg) {
+            ins[node.getIndex()] = new BitSet();
+            outs[node.getIndex()] = new BitSet();
+        }
+        outs[cfg.getEntry().getIndex()].set(stmtCount, stmtCount + defsOfVar.length);
+        Queue<Stmt> workList = new SetQueue<>();
+        for (Stmt node : cfg) {
+            if (!cfg.isEntry(node)) {
+                workList.add(node);
+            }
+        }
+        while (!workList.isEmpty()) {
+            Stmt node = workList.poll();
+            BitSet in = ins[node.getIndex()];
+            for (Stmt pred : cfg.getPredsOf(node)) {
+                in.or(outs[pred.getIndex()]);
+            }
+            BitSet out = (BitSet) in.clone();
+            Var var = getDefVar(node);
+            if (var != null) {
+                out.andNot(defsOfVar[var.getIndex()]);
+                out.set(node.getIndex());
+            }
+            if (!out.equals(outs[node.getIndex()])) {
+                outs[node.getIndex()] = out;
+                workList.addAll(cfg.getSuccsOf(node));
+            }
+        }
+        return ins;
+    }
+
+    /**
+     * Growable list of ints.
+     */
+    private static class IntList {
+
+        private int[] elements = new int[16];
+
+        private int size;
+
+        private void add(int e) {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, size * 2);
+            }
+            elements[size++] = e;
+        }
+
+        private int get(int i) {
+            return elements[i];
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(elements, size);
+        }
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dominator;
+
+import pascal.taie.analysis.MethodAnalysis;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import static pascal.taie.analysis.dominator.Dominators.NONE;
+
+/**
+ * Builds {@link Dominators} for a method. The (post-)dominator trees are
+ * computed by the iterative algorithm of Cooper, Harvey and Kennedy over
+ * the reverse postorder of the CFG, and the loop-nest forest is built
+ * from the back edges, from the innermost loops to the outermost ones.
+ * <p>
+ * The results are stored in the IR, thus the clients which do not run
+ * this analysis explicitly can obtain the results via
+ * {@link #getDominators(IR)}, which builds the results of each IR
+ * at most once.
+ */
+public class DominatorAnalysis extends MethodAnalysis {
+
+    public static final String ID = "dominator";
+
+    public DominatorAnalysis(AnalysisConfig config) {
+        super(config);
+    }
+
+    @Override
+    public Dominators analyze(IR ir) {
+        return getDominators(ir);
+    }
+
+    /**
+     * @return the dominators of given IR, which are built and stored
+     * in the IR if they are not available.
+     */
+    public static Dominators getDominators(IR ir) {
+        return ir.getResult(ID, () -> build(ir));
+    }
+
+    private static Dominators build(IR ir) {
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        int n = cfg.getNumberOfNodes();
+        Stmt[] nodes = new Stmt[n];
+        int[][] succs = new int[n][];
+        int[][] preds = new int[n][];
+        for (Stmt node : cfg) {
+            int i = node.getIndex();
+            nodes[i] = node;
+            succs[i] = toIndexes(cfg.getSuccsOf(node));
+            preds[i] = toIndexes(cfg.getPredsOf(node));
+        }
+        Dominators.Tree dom = buildTree(cfg.getEntry().getIndex(), succs, preds);
+        Dominators.Tree postDom = buildTree(cfg.getExit().getIndex(), preds, succs);
+
+        // find loops, from the headers with the largest preorder numbers,
+        // so that inner loops are found before the ones containing them
+        int[] byPreorder = new int[n];
+        int reachable = 0;
+        for (int i = 0; i < n; ++i) {
+            if (dom.getPreorder(i) != NONE) {
+                byPreorder[dom.getPreorder(i)] = i;
+                ++reachable;
+            }
+        }
+        int[] loopHeaders = new int[n];
+        int[] parentLoops = new int[n];
+        Arrays.fill(loopHeaders, NONE);
+        Arrays.fill(parentLoops, NONE);
+        int[] headers = new int[n];
+        int headerCount = 0;
+        int[] stack = new int[n];
+        for (int p = reachable - 1; p >= 0; --p) {
+            int h = byPreorder[p];
+            int top = 0;
+            for (int pred : preds[h]) {
+                if (dom.isAncestor(h, pred)) { // back edge pred -> h
+                    stack = push(stack, top++, pred);
+                }
+            }
+            if (top == 0) {
+                continue;
+            }
+            headers[headerCount++] = h;
+            loopHeaders[h] = h;
+            while (top > 0) {
+                int node = stack[--top];
+                int next;
+                if (loopHeaders[node] == NONE) {
+                    loopHeaders[node] = h;
+                    next = node;
+                } else {
+                    // node is in a loop found before, then add the
+                    // outermost loop containing it to the loop of h
+                    int outer = loopHeaders[node];
+                    while (parentLoops[outer] != NONE) {
+                        outer = parentLoops[outer];
+                    }
+                    if (outer == h) {
+                        continue;
+                    }
+                    parentLoops[outer] = h;
+                    next = outer;
+                }
+                for (int pred : preds[next]) {
+                    if (dom.getPreorder(pred) != NONE) {
+                        stack = push(stack, top++, pred);
+                    }
+                }
+            }
+        }
+        // reverse the headers, so that outer loops come first
+        headers = Arrays.copyOf(headers, headerCount);
+        for (int i = 0, j = headerCount - 1; i < j; ++i, --j) {
+            int h = headers[i];
+            headers[i] = headers[j];
+            headers[j] = h;
+        }
+        int[] loopDepths = new int[n];
+        for (int h : headers) {
+            loopDepths[h] = parentLoops[h] == NONE ? 1 : loopDepths[parentLoops[h]] + 1;
+        }
+        for (int i = 0; i < n; ++i) {
+            if (loopHeaders[i] != NONE && loopHeaders[i] != i) {
+                loopDepths[i] = loopDepths[loopHeaders[i]];
+            }
+        }
+        return new Dominators(nodes, dom, postDom,
+                loopHeaders, parentLoops, loopDepths, headers);
+    }
+
+    /**
+     * Builds the dominator tree of the graph given by {@code succs} and
+     * {@code preds}, rooted at {@code root}. Post-dominator trees are
+     * built by giving the reversed graph.
+     */
+    private static Dominators.Tree buildTree(int root, int[][] succs, int[][] preds) {
+        int n = succs.length;
+        // number the nodes in reverse postorder
+        int[] order = reversePostOrder(root, succs);
+        int[] rpo = new int[n];
+        Arrays.fill(rpo, NONE);
+        for (int i = 0; i < order.length; ++i) {
+            rpo[order[i]] = i;
+        }
+        int[] idoms = new int[n];
+        Arrays.fill(idoms, NONE);
+        idoms[root] = root;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 1; i < order.length; ++i) {
+                int node = order[i];
+                int idom = NONE;
+                for (int pred : preds[node]) {
+                    if (idoms[pred] != NONE) {
+                        idom = idom == NONE ? pred : intersect(pred, idom, idoms, rpo);
+                    }
+                }
+                if (idoms[node] != idom) {
+                    idoms[node] = idom;
+                    changed = true;
+                }
+            }
+        }
+        idoms[root] = NONE;
+        // number the tree in preorder, via the children of each node
+        // in compressed sparse row format
+        int[] childStarts = new int[n + 1];
+        for (int node : order) {
+            if (idoms[node] != NONE) {
+                ++childStarts[idoms[node] + 1];
+            }
+        }
+        for (int i = 0; i < n; ++i) {
+            childStarts[i + 1] += childStarts[i];
+        }
+        int[] children = new int[childStarts[n]];
+        int[] next = Arrays.copyOf(childStarts, n);
+        for (int node : order) {
+            if (idoms[node] != NONE) {
+                children[next[idoms[node]]++] = node;
+            }
+        }
+        int[] preorder = new int[n];
+        int[] lasts = new int[n];
+        Arrays.fill(preorder, NONE);
+        Arrays.fill(lasts, NONE);
+        int[] stack = new int[order.length];
+        int top = 0;
+        int count = 0;
+        stack[top++] = root;
+        preorder[root] = count++;
+        // next[node] is reused as the position of the next child to visit
+        System.arraycopy(childStarts, 0, next, 0, n);
+        while (top > 0) {
+            int node = stack[top - 1];
+            if (next[node] < childStarts[node + 1]) {
+                int child = children[next[node]++];
+                preorder[child] = count++;
+                stack[top++] = child;
+            } else {
+                lasts[node] = count - 1;
+                --top;
+            }
+        }
+        return new Dominators.Tree(idoms, preorder, lasts);
+    }
+
+    private static int intersect(int a, int b, int[] idoms, int[] rpo) {
+        while (a != b) {
+            while (rpo[a] > rpo[b]) {
+                a = idoms[a];
+            }
+            while (rpo[b] > rpo[a]) {
+                b = idoms[b];
+            }
+        }
+        return a;
+    }
+
+    /**
+     * @return the nodes reachable from root, in reverse postorder.
+     */
+    private static int[] reversePostOrder(int root, int[][] succs) {
+        int n = succs.length;
+        boolean[] visited = new boolean[n];
+        int[] postOrder = new int[n];
+        int count = 0;
+        int[] stack = new int[n];
+        int[] positions = new int[n];
+        int top = 0;
+        stack[top++] = root;
+        visited[root] = true;
+        while (top > 0) {
+            int node = stack[top - 1];
+            if (positions[node] < succs[node].length) {
+                int succ = succs[node][positions[node]++];
+                if (!visited[succ]) {
+                    visited[succ] = true;
+                    stack[top++] = succ;
+                }
+            } else {
+                postOrder[count++] = node;
+                --top;
+            }
+        }
+        int[] order = new int[count];
+        for (int i = 0; i < count; ++i) {
+            order[i] = postOrder[count - 1 - i];
+        }
+        return order;
+    }
+
+    private static int[] toIndexes(Collection<Stmt> stmts) {
+        return stmts.stream().mapToInt(Stmt::getIndex).toArray();
+    }
+
+    /**
+     * Pushes an element to given stack, which grows if it is full.
+     *
+     * @return the stack
+     */
+    private static int[] push(int[] stack, int top, int e) {
+        if (top == stack.length) {
+            stack = Arrays.copyOf(stack, Math.max(16, top * 2));
+        }
+        stack[top] = e;
+        return stack;
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dominator;
+
+import pascal.taie.ir.stmt.Stmt;
+
+import javax.annotation.Nullable;
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Dominator tree, post-dominator tree and loop-nest forest of the CFG
+ * of a method.
+ * <p>
+ * Node a dominates node b if every path from the entry to b goes through a,
+ * and a post-dominates b if every path from b to the exit goes through a.
+ * A (natural) loop is identified by its header h, and consists of the nodes
+ * which can reach a back edge t -> h (i.e., an edge whose target h dominates
+ * its source t) without going through h. Loops with the same header are
+ * merged, and the loops form a forest where each loop is nested in the
+ * innermost loop containing its header. Cycles which are not natural loops,
+ * i.e., the ones entered at more than one node, are not recognized as loops.
+ * <p>
+ * All the relations are kept in int arrays over the indexes of the CFG
+ * nodes, and the trees are additionally numbered in preorder, so that
+ * whether a node (post-)dominates another is answered in constant time.
+ */
+public class Dominators {
+
+    /**
+     * Value of the absent nodes in the arrays.
+     */
+    static final int NONE = -1;
+
+    /**
+     * The CFG nodes, indexed by {@link Stmt#getIndex()}.
+     */
+    private final Stmt[] nodes;
+
+    private final Tree dom;
+
+    private final Tree postDom;
+
+    /**
+     * For each node, the header of the innermost loop containing it.
+     */
+    private final int[] loopHeaders;
+
+    /**
+     * For each loop header, the header of the loop where the loop is nested.
+     */
+    private final int[] parentLoops;
+
+    /**
+     * For each node, number of the loops containing it.
+     */
+    private final int[] loopDepths;
+
+    /**
+     * Headers of all loops, sorted by the preorder of the dominator tree,
+     * i.e., the outer loops come before the ones nested in them.
+     */
+    private final int[] headers;
+
+    Dominators(Stmt[] nodes, Tree dom, Tree postDom, int[] loopHeaders,
+               int[] parentLoops, int[] loopDepths, int[] headers) {
+        this.nodes = nodes;
+        this.dom = dom;
+        this.postDom = postDom;
+        this.loopHeaders = loopHeaders;
+        this.parentLoops = parentLoops;
+        this.loopDepths = loopDepths;
+        this.headers = headers;
+    }
+
+    /**
+     * @return the immediate dominator of given node, or null if the node
+     * is the entry or is unreachable from the entry.
+     */
+    @Nullable
+    public Stmt getImmediateDominator(Stmt node) {
+        return toNode(dom.parents[node.getIndex()]);
+    }
+
+    /**
+     * @return true if node a dominates node b (every node dominates itself),
+     * otherwise false. Returns false if b is unreachable from the entry.
+     */
+    public boolean dominates(Stmt a, Stmt b) {
+        return dom.isAncestor(a.getIndex(), b.getIndex());
+    }
+
+    /**
+     * @return the immediate post-dominator of given node, or null if
+     * the node is the exit or cannot reach the exit.
+     */
+    @Nullable
+    public Stmt getImmediatePostDominator(Stmt node) {
+        return toNode(postDom.parents[node.getIndex()]);
+    }
+
+    /**
+     * @return true if node a post-dominates node b (every node post-dominates
+     * itself), otherwise false. Returns false if b cannot reach the exit.
+     */
+    public boolean postDominates(Stmt a, Stmt b) {
+        return postDom.isAncestor(a.getIndex(), b.getIndex());
+    }
+
+    /**
+     * @return true if given node is the header of a loop, otherwise false.
+     */
+    public boolean isLoopHeader(Stmt node) {
+        return loopHeaders[node.getIndex()] == node.getIndex();
+    }
+
+    /**
+     * @return the header of the innermost loop containing given node
+     * (a loop header is contained in its own loop), or null if
+     * the node is not in any loop.
+     */
+    @Nullable
+    public Stmt getLoopHeader(Stmt node) {
+        return toNode(loopHeaders[node.getIndex()]);
+    }
+
+    /**
+     * @return the header of the loop where the loop of given header is
+     * nested, or null if the loop is outermost.
+     */
+    @Nullable
+    public Stmt getParentLoop(Stmt header) {
+        return toNode(parentLoops[header.getIndex()]);
+    }
+
+    /**
+     * @return number of the loops containing given node.
+     */
+    public int getLoopDepth(Stmt node) {
+        return loopDepths[node.getIndex()];
+    }
+
+    /**
+     * @return the headers of all loops, where the headers of outer loops
+     * come before the ones of the loops nested in them.
+     */
+    public List<Stmt> getLoopHeaders() {
+        return new AbstractList<>() {
+            @Override
+            public Stmt get(int i) {
+                return nodes[headers[i]];
+            }
+
+            @Override
+            public int size() {
+                return headers.length;
+            }
+        };
+    }
+
+    @Nullable
+    private Stmt toNode(int index) {
+        return index == NONE ? null : nodes[index];
+    }
+
+    /**
+     * A (post-)dominator tree.
+     */
+    static class Tree {
+
+        /**
+         * For each node, its parent in the tree.
+         */
+        private final int[] parents;
+
+        /**
+         * For each node, its number in the preorder of the tree,
+         * or {@link #NONE} if it is not in the tree.
+         */
+        private final int[] preorder;
+
+        /**
+         * For each node, the largest preorder number of its descendants,
+         * thus the descendants of node n are numbered in
+         * [preorder[n], lasts[n]].
+         */
+        private final int[] lasts;
+
+        Tree(int[] parents, int[] preorder, int[] lasts) {
+            this.parents = parents;
+            this.preorder = preorder;
+            this.lasts = lasts;
+        }
+
+        int getPreorder(int node) {
+            return preorder[node];
+        }
+
+        boolean isAncestor(int a, int b) {
+            return preorder[a] != NONE && preorder[b] != NONE
+                    && preorder[a] <= preorder[b] && preorder[b] <= lasts[a];
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Creates the maps whose contents are written out when the JVM exits,
+ * e.g., the caches which are kept across runs, and the statistics which
+ * are reported after a run.
+ */
+public final class ExitHooks {
+
+    private static final Logger logger = LogManager.getLogger(ExitHooks.class);
+
+    private ExitHooks() {
+    }
+
+    /**
+     * Creates a concurrent map, and registers a shutdown hook which
+     * passes the map to given action when the JVM exits.
+     *
+     * @param name   name of the hook, which is also the name of its thread
+     * @param action writes out the contents of the map
+     * @return the created map
+     */
+    public static <K, V> Map<K, V> newMap(String name, Consumer<? super Map<K, V>> action) {
+        Map<K, V> map = Maps.newConcurrentMap();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                action.accept(map);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to run exit hook {}", name, e);
+            }
+        }, name));
+        return map;
+    }
+}
@@ -27,6 +27,10 @@ import pascal.taie.Main;
 import pascal.taie.World;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -61,6 +65,54 @@ public final class Tests {
      * @param opts      options for the analysis
      */
     public static void test(String main, String classPath, String id, String... opts) {
+        // set up result processor
+        String action = GENERATE_EXPECTED_RESULTS ? "dump" : "compare";
+        String file = getExpectedFile(classPath, main, id);
+        run(main, classPath, id, action, file, opts);
+        if (action.equals("compare")) {
+            Set<String> mismatches = World.get().getResult(ResultProcessor.ID);
+            Assert.assertTrue("Mismatches of analysis \"" + id + "\":\n" +
+                            String.join("\n", mismatches),
+                    mismatches.isEmpty());
+        }
+    }
+
+    /**
+     * Starts an analysis for a specific test case, and returns its results
+     * in the format of the expected results. This is for the test cases
+     * whose results are compared with the expected results in other ways
+     * than equality, e.g., by precision.
+     *
+     * @return the lines of the results.
+     * @see #test(String, String, String, String...)
+     */
+    public static List<String> dump(String main, String classPath, String id, String... opts) {
+        try {
+            Path file = Files.createTempFile(main + "-" + id, ".txt");
+            try {
+                run(main, classPath, id, "dump", file.toString(), opts);
+                return Files.readAllLines(file);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the lines of the expected results of given test case.
+     */
+    public static List<String> readExpected(String main, String classPath, String id) {
+        try {
+            return Files.readAllLines(Paths.get(getExpectedFile(classPath, main, id)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void run(String main, String classPath, String id,
+                            String action, String file, String... opts) {
         List<String> args = new ArrayList<>();
         args.add("-pp");
         Collections.addAll(args, "-cp", classPath);
@@ -81,18 +133,10 @@ public final class Tests {
             Collections.addAll(args, opts);
         }
         // set up result processor
-        String action = GENERATE_EXPECTED_RESULTS ? "dump" : "compare";
-        String file = getExpectedFile(classPath, main, id);
         String processArg = String.format("%s=analyses:[%s];action:%s;file:%s",
                 ResultProcessor.ID, id, action, file);
         Collections.addAll(args, "-a", processArg);
         Main.main(args.toArray(new String[0]));
-        if (action.equals("compare")) {
-            Set<String> mismatches = World.get().getResult(ResultProcessor.ID);
-            Assert.assertTrue("Mismatches of analysis \"" + id + "\":\n" +
-                            String.join("\n", mismatches),
-                    mismatches.isEmpty());
-        }
     }
 
     public static void testPTA(String dir, String main, String... opts) {
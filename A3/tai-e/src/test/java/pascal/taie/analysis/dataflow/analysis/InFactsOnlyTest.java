@@ -0,0 +1,85 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.solver.RandomIR;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the results in in-facts-only mode, where the facts
+ * flowing out of the transfer functions are recomputed on demand,
+ * are the same as the full results.
+ */
+public class InFactsOnlyTest {
+
+    private static <Fact> void testInFactsOnly(
+            Function<Boolean, AbstractDataflowAnalysis<Stmt, Fact>> factory) {
+        AbstractDataflowAnalysis<Stmt, Fact> full = factory.apply(false);
+        AbstractDataflowAnalysis<Stmt, Fact> inFactsOnly = factory.apply(true);
+        Random random = new Random(0);
+        for (int n = 0; n < 200; ++n) {
+            IR ir = RandomIR.build(random);
+            CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+            DataflowResult<Stmt, Fact> expected = full.analyze(ir);
+            DataflowResult<Stmt, Fact> actual = inFactsOnly.analyze(ir);
+            for (Stmt node : cfg) {
+                assertEquals("IN fact of " + node,
+                        expected.getInFact(node), actual.getInFact(node));
+                assertEquals("OUT fact of " + node,
+                        expected.getOutFact(node), actual.getOutFact(node));
+            }
+        }
+    }
+
+    @Test
+    public void testConstantPropagation() {
+        testInFactsOnly(inFactsOnly -> new ConstantPropagation(
+                RandomIR.config(ConstantPropagation.ID,
+                        "edge-refine", false, "in-facts-only", inFactsOnly)));
+    }
+
+    @Test
+    public void testSparseConstantPropagation() {
+        testInFactsOnly(inFactsOnly -> new ConstantPropagation(
+                RandomIR.config(ConstantPropagation.ID, "sparse", true,
+                        "edge-refine", false, "in-facts-only", inFactsOnly)));
+    }
+
+    @Test
+    public void testLiveVariable() {
+        testInFactsOnly(inFactsOnly -> new LiveVariableAnalysis(
+                RandomIR.config(LiveVariableAnalysis.ID,
+                        "strongly", false, "in-facts-only", inFactsOnly)));
+    }
+}
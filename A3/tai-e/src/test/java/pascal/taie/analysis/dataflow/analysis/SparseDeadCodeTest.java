@@ -0,0 +1,102 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.analysis.Tests;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks that dead code detection based on sparse constant propagation
+ * finds all the dead code in the expected results, as the sparse analysis
+ * is the same as, or more precise than, the dense one.
+ */
+public class SparseDeadCodeTest {
+
+    private static final String CLASS_PATH = "src/test/resources/dataflow/deadcode/";
+
+    void testSparseDCD(String inputClass) {
+        Map<String, Set<String>> expected = parse(Tests.readExpected(
+                inputClass, CLASS_PATH, DeadCodeDetection.ID));
+        Map<String, Set<String>> actual = parse(Tests.dump(
+                inputClass, CLASS_PATH, DeadCodeDetection.ID,
+                "-a", "livevar=strongly:false",
+                "-a", "constprop=edge-refine:false;sparse:true"));
+        Assert.assertEquals("Methods of sparse results",
+                expected.keySet(), actual.keySet());
+        expected.forEach((method, deadCode) -> {
+            Set<String> missing = new HashSet<>(deadCode);
+            missing.removeAll(actual.get(method));
+            Assert.assertTrue("Dead code missed in " + method + ": " + missing,
+                    missing.isEmpty());
+        });
+    }
+
+    /**
+     * @return the map from the header of each method to its dead code.
+     */
+    private static Map<String, Set<String>> parse(List<String> lines) {
+        Map<String, Set<String>> result = new LinkedHashMap<>();
+        Set<String> deadCode = null;
+        for (String line : lines) {
+            if (line.startsWith("----")) {
+                deadCode = new HashSet<>();
+                result.put(line, deadCode);
+            } else if (!line.isBlank() && deadCode != null) {
+                deadCode.add(line);
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testControlFlowUnreachable() {
+        testSparseDCD("ControlFlowUnreachable");
+    }
+
+    @Test
+    public void testUnreachableIfBranch() {
+        testSparseDCD("UnreachableIfBranch");
+    }
+
+    @Test
+    public void testUnreachableSwitchBranch() {
+        testSparseDCD("UnreachableSwitchBranch");
+    }
+
+    @Test
+    public void testDeadAssignment() {
+        testSparseDCD("DeadAssignment");
+    }
+
+    @Test
+    public void testLoops() {
+        testSparseDCD("Loops");
+    }
+}
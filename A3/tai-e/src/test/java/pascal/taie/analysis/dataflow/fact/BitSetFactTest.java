@@ -0,0 +1,188 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.type.PrimitiveType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that {@link BitSetFact} behaves like the map-backed {@link SetFact},
+ * also when the two kinds of facts are mixed in one operation.
+ */
+public class BitSetFactTest {
+
+    /**
+     * Number of elements, which exceeds the capacity given to the facts,
+     * so that the bit sets also have to grow.
+     */
+    private static final int N = 150;
+
+    private static final int CAPACITY = 64;
+
+    private final List<Var> vars = new ArrayList<>();
+
+    public BitSetFactTest() {
+        for (int i = 0; i < N; ++i) {
+            vars.add(new Var(null, "v" + i, PrimitiveType.INT, i));
+        }
+    }
+
+    private BitSetFact<Var> newBitSetFact() {
+        return new BitSetFact<>(vars::get, CAPACITY);
+    }
+
+    /**
+     * Pair of facts with the same content, the one backed by bits
+     * and the other one backed by a set.
+     */
+    private record Pair(BitSetFact<Var> bits, SetFact<Var> set) {
+
+        void check(String op) {
+            Assert.assertEquals(op + ": size", set.size(), bits.size());
+            Assert.assertEquals(op + ": isEmpty", set.isEmpty(), bits.isEmpty());
+            Assert.assertTrue(op + ": bits equals set", bits.equals(set));
+            Assert.assertTrue(op + ": set equals bits", set.equals(bits));
+            Assert.assertEquals(op + ": hashCode", set.hashCode(), bits.hashCode());
+            Assert.assertEquals(op + ": elements",
+                    set.stream().map(Var::getIndex).sorted().toList(),
+                    bits.stream().map(Var::getIndex).sorted().toList());
+        }
+    }
+
+    private Pair newPair(Random random) {
+        Pair pair = new Pair(newBitSetFact(), new SetFact<>());
+        int n = random.nextInt(N / 2);
+        for (int i = 0; i < n; ++i) {
+            Var v = vars.get(random.nextInt(N));
+            pair.bits().add(v);
+            pair.set().add(v);
+        }
+        return pair;
+    }
+
+    /**
+     * @return the bits or the set of given pair, chosen at random,
+     * so that both the word-wise and element-wise paths are covered.
+     */
+    private static SetFact<Var> either(Pair pair, Random random) {
+        return random.nextBoolean() ? pair.bits() : pair.set();
+    }
+
+    @Test
+    public void testAddRemoveContains() {
+        Pair pair = new Pair(newBitSetFact(), new SetFact<>());
+        Random random = new Random(1);
+        for (int i = 0; i < 2000; ++i) {
+            Var v = vars.get(random.nextInt(N));
+            if (random.nextBoolean()) {
+                Assert.assertEquals(pair.set().add(v), pair.bits().add(v));
+            } else {
+                Assert.assertEquals(pair.set().remove(v), pair.bits().remove(v));
+            }
+            Assert.assertEquals(pair.set().contains(v), pair.bits().contains(v));
+        }
+        pair.check("add/remove");
+        Assert.assertEquals(pair.set().removeIf(v -> v.getIndex() % 3 == 0),
+                pair.bits().removeIf(v -> v.getIndex() % 3 == 0));
+        pair.check("removeIf");
+        pair.bits().clear();
+        pair.set().clear();
+        pair.check("clear");
+    }
+
+    @Test
+    public void testUnionIntersect() {
+        Random random = new Random(2);
+        for (int i = 0; i < 500; ++i) {
+            Pair pair = newPair(random);
+            Pair other = newPair(random);
+            SetFact<Var> arg = either(other, random);
+            if (random.nextBoolean()) {
+                Assert.assertEquals("union changed",
+                        pair.set().union(arg), pair.bits().union(arg));
+                pair.check("union");
+            } else {
+                Assert.assertEquals("intersect changed",
+                        pair.set().intersect(arg), pair.bits().intersect(arg));
+                pair.check("intersect");
+            }
+            // a plain fact absorbs the bits of a bit-set fact
+            SetFact<Var> plain = new SetFact<>();
+            plain.union(pair.bits());
+            Assert.assertEquals(pair.set(), plain);
+        }
+    }
+
+    @Test
+    public void testSetGenKill() {
+        Random random = new Random(3);
+        for (int i = 0; i < 500; ++i) {
+            Pair pair = newPair(random);
+            Pair gen = newPair(random);
+            Pair kill = newPair(random);
+            Pair in = newPair(random);
+            if (random.nextInt(4) == 0) {
+                // no change: the result is already the content
+                pair = new Pair(newBitSetFact(), new SetFact<>());
+                SetFact<Var> result = in.set().copy();
+                kill.set().stream().forEach(result::remove);
+                result.union(gen.set());
+                pair.bits().set(result);
+                pair.set().set(result);
+            }
+            // all bits (word-wise), or mixed (element-wise)
+            boolean mixed = random.nextBoolean();
+            boolean expected = pair.set().setGenKill(
+                    gen.set(), kill.set(), in.set());
+            boolean actual = pair.bits().setGenKill(
+                    mixed ? either(gen, random) : gen.bits(),
+                    mixed ? either(kill, random) : kill.bits(),
+                    mixed ? either(in, random) : in.bits());
+            Assert.assertEquals("setGenKill changed", expected, actual);
+            pair.check("setGenKill");
+        }
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        Random random = new Random(4);
+        Pair pair = newPair(random);
+        SetFact<Var> copy = pair.bits().copy();
+        Assert.assertTrue(copy instanceof BitSetFact);
+        Assert.assertEquals(pair.bits(), copy);
+        copy.add(vars.get(N - 1));
+        copy.remove(vars.get(0));
+        pair.check("copy");
+        SetFact<Var> union = pair.bits().unionWith(pair.set());
+        Assert.assertEquals(pair.set(), union);
+        SetFact<Var> intersection = pair.bits().intersectWith(new SetFact<>());
+        Assert.assertTrue(intersection.isEmpty());
+        pair.check("unionWith/intersectWith");
+    }
+}
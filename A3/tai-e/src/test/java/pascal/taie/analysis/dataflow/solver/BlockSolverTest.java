@@ -0,0 +1,73 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class BlockSolverTest {
+
+    /**
+     * Checks that the facts of the block solver, including the ones
+     * recomputed inside the blocks, are the same as the facts of
+     * the work-list solver.
+     */
+    private static <Fact> void testBlock(DataflowAnalysis<Stmt, Fact> analysis) {
+        Random random = new Random(0);
+        for (int n = 0; n < 200; ++n) {
+            CFG<Stmt> cfg = RandomIR.build(random).getResult(CFGBuilder.ID);
+            DataflowResult<Stmt, Fact> expected =
+                    Solver.makeSolver(analysis, "worklist").solve(cfg);
+            DataflowResult<Stmt, Fact> actual =
+                    Solver.makeSolver(analysis, "block").solve(cfg);
+            for (Stmt node : cfg) {
+                assertEquals("IN fact of " + node,
+                        expected.getInFact(node), actual.getInFact(node));
+                assertEquals("OUT fact of " + node,
+                        expected.getOutFact(node), actual.getOutFact(node));
+            }
+        }
+    }
+
+    @Test
+    public void testForward() {
+        testBlock(new ConstantPropagation(
+                RandomIR.config(ConstantPropagation.ID, "edge-refine", false)));
+    }
+
+    @Test
+    public void testBackward() {
+        testBlock(new LiveVariableAnalysis(
+                RandomIR.config(LiveVariableAnalysis.ID, "strongly", false)));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.analysis.AbstractDataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DemandDrivenSolverTest {
+
+    /**
+     * Queries the facts of the nodes in random order, and checks them
+     * against the facts of the work-list solver. The nodes solved for
+     * previous queries are reused, thus querying them again solves
+     * nothing and gives the same facts.
+     */
+    private static <Fact> void testOnDemand(AbstractDataflowAnalysis<Stmt, Fact> analysis) {
+        Random random = new Random(0);
+        for (int n = 0; n < 200; ++n) {
+            IR ir = RandomIR.build(random);
+            CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+            DataflowResult<Stmt, Fact> expected =
+                    Solver.makeSolver(analysis, "worklist").solve(cfg);
+            NodeResult<Stmt, Fact> result = analysis.analyzeOnDemand(ir);
+            assertSame(result, analysis.analyzeOnDemand(ir));
+            DemandDrivenSolver<Stmt, Fact> solver = (DemandDrivenSolver<Stmt, Fact>) result;
+            // the boundary node depends on no other nodes
+            Stmt boundary = analysis.isForward() ? cfg.getEntry() : cfg.getExit();
+            assertEquals(expected.getInFact(boundary), result.getInFact(boundary));
+            assertEquals(1, solver.getNumberOfSolvedNodes());
+            List<Stmt> nodes = new ArrayList<>(cfg.getNodes());
+            Collections.shuffle(nodes, random);
+            int solved = 1;
+            for (Stmt node : nodes) {
+                assertEquals("IN fact of " + node,
+                        expected.getInFact(node), result.getInFact(node));
+                assertTrue(solver.getNumberOfSolvedNodes() >= solved);
+                solved = solver.getNumberOfSolvedNodes();
+                assertEquals("OUT fact of " + node,
+                        expected.getOutFact(node), result.getOutFact(node));
+                assertEquals(solved, solver.getNumberOfSolvedNodes());
+            }
+            for (Stmt node : nodes) {
+                assertEquals("IN fact of " + node,
+                        expected.getInFact(node), result.getInFact(node));
+                assertEquals("OUT fact of " + node,
+                        expected.getOutFact(node), result.getOutFact(node));
+            }
+            assertEquals(solved, solver.getNumberOfSolvedNodes());
+            assertTrue(solved <= cfg.getNumberOfNodes());
+        }
+    }
+
+    @Test
+    public void testForward() {
+        testOnDemand(new ConstantPropagation(
+                RandomIR.config(ConstantPropagation.ID, "edge-refine", false)));
+    }
+
+    @Test
+    public void testBackward() {
+        testOnDemand(new LiveVariableAnalysis(
+                RandomIR.config(LiveVariableAnalysis.ID, "strongly", false)));
+    }
+}
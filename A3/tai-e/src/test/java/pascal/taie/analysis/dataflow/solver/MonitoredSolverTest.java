@@ -0,0 +1,167 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.ir.DefaultIR;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.PrimitiveType;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MonitoredSolverTest {
+
+    private static final JMethod METHOD = new JMethod(new JClass(null, "C"),
+            "m", Set.of(), List.of(), PrimitiveType.INT, List.of(),
+            null, null, null);
+
+    private static final List<String> FIELDS = List.of("cfgs", "nodes",
+            "transfers", "meets", "pushes", "pops", "maxPasses",
+            "peakFactSize", "timeMs", "topMethods");
+
+    private static final List<String> METHOD_FIELDS = List.of(
+            "method", "nodes", "transfers", "passes", "timeMs");
+
+    /**
+     * Builds the CFG of method {@code int m()} consisting of
+     * <pre>
+     * 0: a = 1
+     * 1: b = 2
+     * 2: c = 3
+     * 3: return a
+     * </pre>
+     * which has 6 nodes together with the entry and the exit.
+     */
+    private static CFG<Stmt> buildCFG() {
+        List<Var> vars = new ArrayList<>();
+        List<Stmt> stmts = new ArrayList<>();
+        for (int i = 0; i < 3; ++i) {
+            Var var = new Var(METHOD, String.valueOf((char) ('a' + i)),
+                    PrimitiveType.INT, i);
+            vars.add(var);
+            stmts.add(new AssignLiteral(var, IntLiteral.get(i + 1)));
+        }
+        stmts.add(new Return(vars.get(0)));
+        for (int i = 0; i < stmts.size(); ++i) {
+            stmts.get(i).setIndex(i);
+        }
+        IR ir = new DefaultIR(METHOD, null, List.of(), Set.of(),
+                vars, stmts, List.of());
+        return new CFGBuilder(RandomIR.config(CFGBuilder.ID,
+                "exception", "none", "dump", false)).analyze(ir);
+    }
+
+    private static JsonNode readStatistics(String id) throws Exception {
+        JsonNode json = new ObjectMapper().readTree(SolverStatistics.toJson());
+        assertTrue("statistics of " + id, json.has(id));
+        return json.get(id);
+    }
+
+    private static List<String> fieldNames(JsonNode json) {
+        List<String> names = new ArrayList<>();
+        json.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+
+    @Test
+    public void testCounters() throws Exception {
+        String id = "monitored-solver-test";
+        ConstantPropagation cp = new ConstantPropagation(
+                RandomIR.config(ConstantPropagation.ID, "edge-refine", false));
+        CFG<Stmt> cfg = buildCFG();
+        DataflowResult<Stmt, CPFact> result =
+                Solver.makeMonitoredSolver(cp, "worklist", id).solve(cfg);
+        assertEquals(Value.makeConstant(3),
+                result.getOutFact(cfg.getExit()).get(cfg.getIR().getVar(2)));
+
+        JsonNode stats = readStatistics(id);
+        assertEquals(FIELDS, fieldNames(stats));
+        assertEquals(1, stats.get("cfgs").asInt());
+        assertEquals(6, stats.get("nodes").asLong());
+        // every node but the entry is transferred once, after meeting
+        // the fact of its single predecessor
+        assertEquals(5, stats.get("transfers").asLong());
+        assertEquals(5, stats.get("meets").asLong());
+        // all nodes are pushed at first, and each transfer but the one of
+        // the exit pushes the successor again, which is still in the list
+        assertEquals(6 + 4, stats.get("pushes").asLong());
+        assertEquals(6, stats.get("pops").asLong());
+        assertEquals(1, stats.get("maxPasses").asInt());
+        assertEquals(3, stats.get("peakFactSize").asInt());
+        assertTrue(stats.get("timeMs").isIntegralNumber());
+        JsonNode methods = stats.get("topMethods");
+        assertEquals(1, methods.size());
+        assertEquals(METHOD_FIELDS, fieldNames(methods.get(0)));
+        assertEquals(METHOD.toString(), methods.get(0).get("method").asText());
+        assertEquals(6, methods.get(0).get("nodes").asInt());
+        assertEquals(5, methods.get(0).get("transfers").asLong());
+        assertEquals(1, methods.get(0).get("passes").asInt());
+
+        // the counters of the CFGs solved for the same analysis are summed
+        Solver.makeMonitoredSolver(cp, "worklist", id).solve(cfg);
+        stats = readStatistics(id);
+        assertEquals(2, stats.get("cfgs").asInt());
+        assertEquals(12, stats.get("nodes").asLong());
+        assertEquals(20, stats.get("pushes").asLong());
+        assertEquals(12, stats.get("pops").asLong());
+        assertEquals(2, stats.get("topMethods").size());
+    }
+
+    @Test
+    public void testAnalysesSortedById() throws Exception {
+        ConstantPropagation cp = new ConstantPropagation(
+                RandomIR.config(ConstantPropagation.ID, "edge-refine", false));
+        CFG<Stmt> cfg = buildCFG();
+        Solver.makeMonitoredSolver(cp, "block", "monitored-solver-test-z").solve(cfg);
+        Solver.makeMonitoredSolver(cp, "wto", "monitored-solver-test-y").solve(cfg);
+        JsonNode json = new ObjectMapper().readTree(SolverStatistics.toJson());
+        List<String> ids = fieldNames(json);
+        int y = ids.indexOf("monitored-solver-test-y");
+        int z = ids.indexOf("monitored-solver-test-z");
+        assertTrue(0 <= y && y < z);
+        for (Iterator<JsonNode> it = json.elements(); it.hasNext(); ) {
+            assertEquals(FIELDS, fieldNames(it.next()));
+        }
+    }
+}
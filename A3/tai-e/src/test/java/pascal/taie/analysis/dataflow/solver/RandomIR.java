@@ -0,0 +1,104 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.DefaultIR;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Binary;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Goto;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.type.PrimitiveType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Builds the IRs (with CFGs) of random methods for testing the solvers.
+ */
+public final class RandomIR {
+
+    private RandomIR() {
+    }
+
+    public static AnalysisConfig config(String id, Object... options) {
+        Map<String, Object> map = new HashMap<>();
+        for (int i = 0; i < options.length; i += 2) {
+            map.put((String) options[i], options[i + 1]);
+        }
+        return new AnalysisConfig("", "", id, List.of(), new AnalysisOptions(map));
+    }
+
+    /**
+     * Builds the IR of a method of random assignments and jumps,
+     * which may contain loops and unreachable code.
+     */
+    public static IR build(Random random) {
+        List<Var> vars = new ArrayList<>();
+        for (int i = 0; i < 4; ++i) {
+            vars.add(new Var(null, "v" + i, PrimitiveType.INT, i));
+        }
+        int size = 5 + random.nextInt(20);
+        List<Stmt> stmts = new ArrayList<>();
+        for (int i = 0; i < size - 1; ++i) {
+            Var x = vars.get(random.nextInt(vars.size()));
+            Var y = vars.get(random.nextInt(vars.size()));
+            Var z = vars.get(random.nextInt(vars.size()));
+            stmts.add(switch (random.nextInt(5)) {
+                case 0 -> new AssignLiteral(x, IntLiteral.get(random.nextInt(3)));
+                case 1 -> new Binary(x, new ArithmeticExp(ArithmeticExp.Op.ADD, y, z));
+                case 2 -> new Copy(x, y);
+                case 3 -> new If(new ConditionExp(ConditionExp.Op.LT, y, z));
+                default -> new Goto();
+            });
+        }
+        stmts.add(new Return(vars.get(0)));
+        for (int i = 0; i < size; ++i) {
+            Stmt stmt = stmts.get(i);
+            stmt.setIndex(i);
+            if (stmt instanceof If ifStmt) {
+                ifStmt.setTarget(stmts.get(random.nextInt(size)));
+            } else if (stmt instanceof Goto gotoStmt) {
+                gotoStmt.setTarget(stmts.get(random.nextInt(size)));
+            }
+        }
+        IR ir = new DefaultIR(null, null, List.of(), Set.of(), vars, stmts, List.of());
+        ir.storeResult(CFGBuilder.ID, new CFGBuilder(config(CFGBuilder.ID,
+                "exception", "none", "dump", false)).analyze(ir));
+        return ir;
+    }
+}
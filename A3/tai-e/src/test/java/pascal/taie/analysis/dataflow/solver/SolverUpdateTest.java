@@ -0,0 +1,94 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.junit.Test;
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class SolverUpdateTest {
+
+    /**
+     * Removes random edges from random CFGs, and then adds them back.
+     * After each edit, checks that the result updated by
+     * {@link Solver#update} is the same as the one solved from scratch.
+     */
+    private static <Fact> void testUpdate(DataflowAnalysis<Stmt, Fact> analysis) {
+        Solver<Stmt, Fact> solver = Solver.makeSolver(analysis);
+        Random random = new Random(0);
+        for (int n = 0; n < 100; ++n) {
+            CFG<Stmt> cfg = RandomIR.build(random).getResult(CFGBuilder.ID);
+            Set<Edge<Stmt>> edges = new HashSet<>();
+            for (Stmt node : cfg) {
+                for (Edge<Stmt> edge : cfg.getOutEdgesOf(node)) {
+                    if (random.nextInt(4) == 0) {
+                        edges.add(edge);
+                    }
+                }
+            }
+            CFG<Stmt> edited = new EditedCFG(cfg, edges);
+            DataflowResult<Stmt, Fact> result = solver.solve(cfg);
+            solver.update(edited, result, List.of(), edges);
+            assertSameFacts("removing " + edges, solver.solve(edited), result, edited);
+            result = solver.solve(edited);
+            solver.update(cfg, result, edges, List.of());
+            assertSameFacts("adding " + edges, solver.solve(cfg), result, cfg);
+        }
+    }
+
+    private static <Fact> void assertSameFacts(
+            String message, DataflowResult<Stmt, Fact> expected,
+            DataflowResult<Stmt, Fact> actual, CFG<Stmt> cfg) {
+        for (Stmt node : cfg) {
+            assertEquals(message + ", IN of " + node,
+                    expected.getInFact(node), actual.getInFact(node));
+            assertEquals(message + ", OUT of " + node,
+                    expected.getOutFact(node), actual.getOutFact(node));
+        }
+    }
+
+    @Test
+    public void testForward() {
+        testUpdate(new ConstantPropagation(
+                RandomIR.config(ConstantPropagation.ID, "edge-refine", false)));
+    }
+
+    @Test
+    public void testBackward() {
+        testUpdate(new LiveVariableAnalysis(
+                RandomIR.config(LiveVariableAnalysis.ID, "strongly", false)));
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dominator;
+
+import org.junit.Test;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.DefaultIR;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Binary;
+import pascal.taie.ir.stmt.Goto;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.type.PrimitiveType;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DominatorAnalysisTest {
+
+    /**
+     * Builds the IR of:
+     * <pre>
+     *  0: a = 0;
+     *  1: if (a < b) goto 3;
+     *  2: goto 10;
+     *  3: c = 0;
+     *  4: if (c < b) goto 6;
+     *  5: goto 8;
+     *  6: c = c + a;
+     *  7: goto 4;
+     *  8: a = a + c;
+     *  9: goto 1;
+     * 10: if (a < b) goto 12;
+     * 11: goto 13;
+     * 12: a = a + b;
+     * 13: if (a < c) goto 12;
+     * 14: return a;
+     * </pre>
+     * i.e., a loop (1-9) containing a nested loop (4-7), followed by
+     * an irreducible cycle (12-13), which is entered at both 12 and 13.
+     */
+    private static IR buildLoops() {
+        Var a = new Var(null, "a", PrimitiveType.INT, 0);
+        Var b = new Var(null, "b", PrimitiveType.INT, 1);
+        Var c = new Var(null, "c", PrimitiveType.INT, 2);
+        If outer = new If(new ConditionExp(ConditionExp.Op.LT, a, b));
+        If inner = new If(new ConditionExp(ConditionExp.Op.LT, c, b));
+        If split = new If(new ConditionExp(ConditionExp.Op.LT, a, b));
+        If cycle = new If(new ConditionExp(ConditionExp.Op.LT, a, c));
+        Goto toAfter = new Goto(), toOuterBody = new Goto(), toInner = new Goto(),
+                toOuter = new Goto(), toCycle = new Goto();
+        List<Stmt> stmts = List.of(
+                new AssignLiteral(a, IntLiteral.get(0)),
+                outer,
+                toAfter,
+                new AssignLiteral(c, IntLiteral.get(0)),
+                inner,
+                toOuterBody,
+                new Binary(c, new ArithmeticExp(ArithmeticExp.Op.ADD, c, a)),
+                toInner,
+                new Binary(a, new ArithmeticExp(ArithmeticExp.Op.ADD, a, c)),
+                toOuter,
+                split,
+                toCycle,
+                new Binary(a, new ArithmeticExp(ArithmeticExp.Op.ADD, a, b)),
+                cycle,
+                new Return(a));
+        outer.setTarget(stmts.get(3));
+        toAfter.setTarget(split);
+        inner.setTarget(stmts.get(6));
+        toOuterBody.setTarget(stmts.get(8));
+        toInner.setTarget(inner);
+        toOuter.setTarget(outer);
+        split.setTarget(stmts.get(12));
+        toCycle.setTarget(cycle);
+        cycle.setTarget(stmts.get(12));
+        for (int index = 0; index < stmts.size(); ++index) {
+            stmts.get(index).setIndex(index);
+        }
+        IR ir = new DefaultIR(null, null, List.of(), Set.of(),
+                List.of(a, b, c), stmts, List.of());
+        AnalysisConfig config = new AnalysisConfig("", "", CFGBuilder.ID, List.of(),
+                new AnalysisOptions(Map.of("exception", "none", "dump", false)));
+        ir.storeResult(CFGBuilder.ID, new CFGBuilder(config).analyze(ir));
+        return ir;
+    }
+
+    private static List<Stmt> stmts(IR ir, int... indexes) {
+        return Arrays.stream(indexes).mapToObj(ir::getStmt).toList();
+    }
+
+    @Test
+    public void testAnalyzeStoresResult() {
+        IR ir = buildLoops();
+        DominatorAnalysis analysis = new DominatorAnalysis(new AnalysisConfig(
+                "", "", DominatorAnalysis.ID, List.of(), new AnalysisOptions(Map.of())));
+        Dominators dominators = analysis.analyze(ir);
+        assertSame(dominators, DominatorAnalysis.getDominators(ir));
+        assertSame(dominators, analysis.analyze(ir));
+    }
+
+    @Test
+    public void testImmediateDominators() {
+        IR ir = buildLoops();
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        Dominators dominators = DominatorAnalysis.getDominators(ir);
+        int[] idoms = { -1, 0, 1, 1, 3, 4, 4, 6, 5, 8, 2, 10, 10, 10, 13 };
+        for (int i = 1; i < idoms.length; ++i) {
+            assertEquals("idom of " + i, ir.getStmt(idoms[i]),
+                    dominators.getImmediateDominator(ir.getStmt(i)));
+        }
+        assertEquals(cfg.getEntry(), dominators.getImmediateDominator(ir.getStmt(0)));
+        assertNull(dominators.getImmediateDominator(cfg.getEntry()));
+        // both nodes of the irreducible cycle are entered from 10 and 11
+        assertEquals(ir.getStmt(13), dominators.getImmediatePostDominator(ir.getStmt(11)));
+        assertEquals(ir.getStmt(13), dominators.getImmediatePostDominator(ir.getStmt(12)));
+        assertEquals(ir.getStmt(13), dominators.getImmediatePostDominator(ir.getStmt(10)));
+        assertEquals(ir.getStmt(1), dominators.getImmediatePostDominator(ir.getStmt(9)));
+        assertEquals(cfg.getExit(), dominators.getImmediatePostDominator(ir.getStmt(14)));
+        assertNull(dominators.getImmediatePostDominator(cfg.getExit()));
+    }
+
+    /**
+     * Compares the dominance relations with the definition: a dominates b
+     * iff b is reachable from the entry, but not without passing a,
+     * and a post-dominates b iff the same holds in the reversed CFG.
+     */
+    @Test
+    public void testDominanceRelations() {
+        IR ir = buildLoops();
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        Dominators dominators = DominatorAnalysis.getDominators(ir);
+        Set<Stmt> reachable = reach(cfg.getEntry(), null, cfg::getSuccsOf);
+        Set<Stmt> reaching = reach(cfg.getExit(), null, cfg::getPredsOf);
+        for (Stmt a : cfg) {
+            Set<Stmt> avoiding = reach(cfg.getEntry(), a, cfg::getSuccsOf);
+            Set<Stmt> postAvoiding = reach(cfg.getExit(), a, cfg::getPredsOf);
+            for (Stmt b : cfg) {
+                assertEquals(a + " dom " + b,
+                        reachable.contains(b) && !avoiding.contains(b),
+                        dominators.dominates(a, b));
+                assertEquals(a + " postdom " + b,
+                        reaching.contains(b) && !postAvoiding.contains(b),
+                        dominators.postDominates(a, b));
+            }
+        }
+    }
+
+    /**
+     * @return the nodes reachable from given root without passing
+     * the avoided node.
+     */
+    private static Set<Stmt> reach(Stmt root, Stmt avoided,
+                                   Function<Stmt, Set<Stmt>> succs) {
+        Set<Stmt> visited = new HashSet<>();
+        if (root == avoided) {
+            return visited;
+        }
+        Deque<Stmt> workList = new ArrayDeque<>();
+        visited.add(root);
+        workList.add(root);
+        while (!workList.isEmpty()) {
+            for (Stmt succ : succs.apply(workList.poll())) {
+                if (succ != avoided && visited.add(succ)) {
+                    workList.add(succ);
+                }
+            }
+        }
+        return visited;
+    }
+
+    @Test
+    public void testNestedLoops() {
+        IR ir = buildLoops();
+        Dominators dominators = DominatorAnalysis.getDominators(ir);
+        // outer loop comes first
+        assertEquals(stmts(ir, 1, 4), dominators.getLoopHeaders());
+        assertTrue(dominators.isLoopHeader(ir.getStmt(1)));
+        assertTrue(dominators.isLoopHeader(ir.getStmt(4)));
+        assertNull(dominators.getParentLoop(ir.getStmt(1)));
+        assertEquals(ir.getStmt(1), dominators.getParentLoop(ir.getStmt(4)));
+        for (int i : new int[]{ 1, 3, 5, 8, 9 }) {
+            assertEquals("loop of " + i, ir.getStmt(1),
+                    dominators.getLoopHeader(ir.getStmt(i)));
+        }
+        for (int i : new int[]{ 4, 6, 7 }) {
+            assertEquals("loop of " + i, ir.getStmt(4),
+                    dominators.getLoopHeader(ir.getStmt(i)));
+        }
+        int[] depths = { 0, 1, 0, 1, 2, 1, 2, 2, 1, 1, 0, 0, 0, 0, 0 };
+        for (int i = 0; i < depths.length; ++i) {
+            assertEquals("depth of " + i, depths[i],
+                    dominators.getLoopDepth(ir.getStmt(i)));
+        }
+    }
+
+    @Test
+    public void testIrreducibleCycle() {
+        IR ir = buildLoops();
+        Dominators dominators = DominatorAnalysis.getDominators(ir);
+        // neither node of the cycle dominates the other one,
+        // thus the cycle has no back edge and is not a natural loop
+        Stmt s12 = ir.getStmt(12), s13 = ir.getStmt(13);
+        assertFalse(dominators.dominates(s12, s13));
+        assertFalse(dominators.dominates(s13, s12));
+        for (Stmt node : List.of(s12, s13)) {
+            assertFalse(dominators.isLoopHeader(node));
+            assertNull(dominators.getLoopHeader(node));
+            assertEquals(0, dominators.getLoopDepth(node));
+        }
+        assertFalse(dominators.getLoopHeaders().contains(s12));
+        assertFalse(dominators.getLoopHeaders().contains(s13));
+    }
+}
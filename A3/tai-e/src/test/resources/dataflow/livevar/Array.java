@@ -0,0 +1,11 @@
+class Array {
+
+    int sum(int arr[]) {
+        int result = 0;
+        for (int i = 0; i < arr.length; i++) {
+            result += arr[i];
+        }
+        return result;
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,9 @@
+class Assign {
+
+    int assign(int a, int b, int c) {
+        int d = a + b;
+        b = d;
+        c = a;
+        return b;
+    }
+}
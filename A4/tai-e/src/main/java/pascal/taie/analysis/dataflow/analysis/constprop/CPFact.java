@@ -24,9 +24,16 @@ package pascal.taie.analysis.dataflow.analysis.constprop;
 
 import pascal.taie.analysis.dataflow.fact.MapFact;
 import pascal.taie.ir.exp.Var;
+import pascal.taie.util.AnalysisException;
 
-import java.util.Collections;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
 
 /**
  * Represents data facts of constant propagation, which maps variables
@@ -37,15 +44,33 @@ import java.util.Map;
  * it represents that the lattice value of the variable is UNDEF;
  * moreover, if we set the lattice value of a variable to UNDEF,
  * it effectively removes the variable from the CPFact.
+ * <p>
+ * The lattice values are encoded as primitives in arrays indexed by
+ * {@link Var#getIndex()}, so that {@link #copy()}, {@link #meet(CPFact)}
+ * and {@link #equals(Object)} are simple loops over arrays.
+ * As the variable indexes are unique only within a method,
+ * a CPFact can only hold the variables of one method.
  */
 public class CPFact extends MapFact<Var, Value> {
 
+    private final Values values;
+
     public CPFact() {
-        this(Collections.emptyMap());
+        this(0);
+    }
+
+    /**
+     * @param capacity the expected number of variables, e.g., the number
+     *                 of variables of the method being analyzed.
+     *                 This is only a hint, and the fact grows if necessary.
+     */
+    public CPFact(int capacity) {
+        this(new Values(capacity));
     }
 
-    private CPFact(Map<Var, Value> map) {
-        super(map);
+    private CPFact(Values values) {
+        super(values, false);
+        this.values = values;
     }
 
     /**
@@ -54,23 +79,352 @@ public class CPFact extends MapFact<Var, Value> {
      */
     @Override
     public Value get(Var key) {
-        return map.getOrDefault(key, Value.getUndef());
+        return values.getOrUndef(key);
     }
 
     @Override
     public boolean update(Var key, Value value) {
-        if (value.isUndef()) {
-            // if the client code sets variable key to UNDEF,
-            // then we remove the variable from the CPFact
-            // as we use absence to represent UNDEF.
-            return remove(key) != null;
-        } else {
-            return super.update(key, value);
+        // if the client code sets variable key to UNDEF,
+        // then we remove the variable from the CPFact
+        // as we use absence to represent UNDEF.
+        return values.update(key, value);
+    }
+
+    @Override
+    public Value remove(Var key) {
+        return values.remove(key);
+    }
+
+    @Override
+    public boolean copyFrom(MapFact<Var, Value> fact) {
+        if (fact instanceof CPFact other) {
+            return values.copyFrom(other.values);
         }
+        return super.copyFrom(fact);
+    }
+
+    /**
+     * Meets other fact into this fact.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean meet(CPFact other) {
+        return values.meet(other.values);
     }
 
     @Override
     public CPFact copy() {
-        return new CPFact(this.map);
+        return new CPFact(new Values(values));
+    }
+
+    @Override
+    public void clear() {
+        values.clear();
+    }
+
+    @Override
+    public void forEach(BiConsumer<Var, Value> action) {
+        values.forEach(action);
+    }
+
+    /**
+     * Map from variables to their lattice values. For variable of index i,
+     * vars[i] is the variable, kinds[i] is the kind of its value, and
+     * constants[i] is the constant if the value is a constant.
+     */
+    private static class Values extends AbstractMap<Var, Value> {
+
+        private static final byte UNDEF = 0;
+
+        private static final byte CONSTANT = 1;
+
+        private static final byte NAC = 2;
+
+        private Var[] vars;
+
+        private byte[] kinds;
+
+        private int[] constants;
+
+        private int size;
+
+        private Values(int capacity) {
+            vars = new Var[capacity];
+            kinds = new byte[capacity];
+            constants = new int[capacity];
+        }
+
+        private Values(Values other) {
+            vars = other.vars.clone();
+            kinds = other.kinds.clone();
+            constants = other.constants.clone();
+            size = other.size;
+        }
+
+        private static Value toValue(byte kind, int constant) {
+            return switch (kind) {
+                case CONSTANT -> Value.makeConstant(constant);
+                case NAC -> Value.getNAC();
+                default -> Value.getUndef();
+            };
+        }
+
+        private static byte kindOf(Value value) {
+            if (value.isConstant()) {
+                return CONSTANT;
+            } else if (value.isNAC()) {
+                return NAC;
+            } else {
+                return UNDEF;
+            }
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > vars.length) {
+                int newCapacity = Math.max(capacity, vars.length * 2);
+                vars = Arrays.copyOf(vars, newCapacity);
+                kinds = Arrays.copyOf(kinds, newCapacity);
+                constants = Arrays.copyOf(constants, newCapacity);
+            }
+        }
+
+        /**
+         * @return index of given variable if it is present in this map,
+         * otherwise -1.
+         */
+        private int indexOf(Object o) {
+            if (o instanceof Var var) {
+                int i = var.getIndex();
+                if (i < vars.length && vars[i] == var) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Makes slot i hold given variable.
+         */
+        private void occupy(int i, Var var) {
+            if (vars[i] == null) {
+                vars[i] = var;
+                ++size;
+            } else if (vars[i] != var) {
+                throw new AnalysisException(var + " and " + vars[i] +
+                        " cannot be held by the same CPFact");
+            }
+        }
+
+        private void removeAt(int i) {
+            vars[i] = null;
+            kinds[i] = UNDEF;
+            --size;
+        }
+
+        private Value getOrUndef(Var var) {
+            int i = indexOf(var);
+            return i >= 0 ? toValue(kinds[i], constants[i]) : Value.getUndef();
+        }
+
+        private boolean update(Var var, Value value) {
+            byte kind = kindOf(value);
+            if (kind == UNDEF) {
+                return remove(var) != null;
+            }
+            int constant = kind == CONSTANT ? value.getConstant() : 0;
+            int i = var.getIndex();
+            ensureCapacity(i + 1);
+            if (kinds[i] == kind && vars[i] == var
+                    && (kind == NAC || constants[i] == constant)) {
+                return false;
+            }
+            occupy(i, var);
+            kinds[i] = kind;
+            constants[i] = constant;
+            return true;
+        }
+
+        private boolean copyFrom(Values other) {
+            boolean changed = false;
+            ensureCapacity(other.vars.length);
+            for (int i = 0; i < other.vars.length; ++i) {
+                byte kind = other.kinds[i];
+                if (kind != UNDEF && (kinds[i] != kind || vars[i] != other.vars[i] ||
+                        (kind == CONSTANT && constants[i] != other.constants[i]))) {
+                    occupy(i, other.vars[i]);
+                    kinds[i] = kind;
+                    constants[i] = other.constants[i];
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        private boolean meet(Values other) {
+            boolean changed = false;
+            ensureCapacity(other.vars.length);
+            for (int i = 0; i < other.vars.length; ++i) {
+                byte kind = other.kinds[i];
+                if (kind == UNDEF || kinds[i] == NAC) {
+                    continue;
+                }
+                if (kinds[i] == UNDEF) {
+                    occupy(i, other.vars[i]);
+                    kinds[i] = kind;
+                    constants[i] = other.constants[i];
+                    changed = true;
+                } else if (kind == NAC || constants[i] != other.constants[i]) {
+                    occupy(i, other.vars[i]);
+                    kinds[i] = NAC;
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return indexOf(key) >= 0;
+        }
+
+        @Override
+        public Value get(Object key) {
+            int i = indexOf(key);
+            return i >= 0 ? toValue(kinds[i], constants[i]) : null;
+        }
+
+        /**
+         * Putting UNDEF removes the variable, as we use absence to
+         * represent UNDEF.
+         */
+        @Override
+        public Value put(Var key, Value value) {
+            Value old = get(key);
+            update(key, value);
+            return old;
+        }
+
+        @Override
+        public Value remove(Object key) {
+            int i = indexOf(key);
+            if (i < 0) {
+                return null;
+            }
+            Value old = toValue(kinds[i], constants[i]);
+            removeAt(i);
+            return old;
+        }
+
+        @Override
+        public void clear() {
+            Arrays.fill(vars, null);
+            Arrays.fill(kinds, UNDEF);
+            size = 0;
+        }
+
+        @Override
+        public void forEach(BiConsumer<? super Var, ? super Value> action) {
+            for (int i = 0; i < vars.length; ++i) {
+                if (kinds[i] != UNDEF) {
+                    action.accept(vars[i], toValue(kinds[i], constants[i]));
+                }
+            }
+        }
+
+        @Override
+        public Set<Map.Entry<Var, Value>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<Var, Value>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Values that)) {
+                return super.equals(o);
+            }
+            if (size != that.size) {
+                return false;
+            }
+            int n = Math.min(vars.length, that.vars.length);
+            for (int i = 0; i < n; ++i) {
+                byte kind = kinds[i];
+                if (kind != that.kinds[i] || vars[i] != that.vars[i] ||
+                        (kind == CONSTANT && constants[i] != that.constants[i])) {
+                    return false;
+                }
+            }
+            // equal sizes and equal common prefixes imply that
+            // the remaining slots are all UNDEF
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            // consistent with Map.hashCode() and Value.hashCode()
+            int h = 0;
+            for (int i = 0; i < vars.length; ++i) {
+                if (kinds[i] != UNDEF) {
+                    h += vars[i].hashCode() ^
+                            (kinds[i] == CONSTANT ? constants[i] : 0);
+                }
+            }
+            return h;
+        }
+
+        private class EntryIterator implements Iterator<Map.Entry<Var, Value>> {
+
+            private int next = advance(0);
+
+            private int last = -1;
+
+            private int advance(int i) {
+                while (i < vars.length && kinds[i] == UNDEF) {
+                    ++i;
+                }
+                return i;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < vars.length;
+            }
+
+            @Override
+            public Map.Entry<Var, Value> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = advance(next + 1);
+                return new SimpleImmutableEntry<>(
+                        vars[last], toValue(kinds[last], constants[last]));
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                removeAt(last);
+                last = -1;
+            }
+        }
     }
 }
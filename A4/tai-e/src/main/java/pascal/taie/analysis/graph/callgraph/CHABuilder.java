@@ -102,29 +102,20 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
         }
         if(callSite.isSpecial()){
             JClass clazz= callSite.getMethodRef().getDeclaringClass();
-            methods.add(dispatch(clazz,subsignature));
+            JMethod method = dispatch(clazz, subsignature);
+            if (method != null) {
+                methods.add(method);
+            }
         }
-        if(callSite.isVirtual()){
-
+        if(callSite.isVirtual() || callSite.isInterface()){
             JClass clazz=callSite.getMethodRef().getDeclaringClass();
-            Set<JClass> classzSet = new HashSet<>();
-            Queue<JClass> queue = new LinkedList<>();
-            queue.add(clazz);
-            // 找到所有的子类（直接和间接）
-            while(!queue.isEmpty()){
-                JClass t = queue.remove();
-                classzSet.add(t);
-                for(JClass c : hierarchy.getDirectSubclassesOf(t)){
-                    if(queue.contains(c)){
-                        continue;
-                    }
-                    classzSet.add(c);
-                    queue.add(c);
-                }
-            }
-            classzSet.forEach(c->
+            // 所有的子类型（直接和间接，包括实现类和子接口）
+            hierarchy.getAllSubclassesOf(clazz).forEach(c->
             {
-                methods.add(dispatch(c,subsignature));
+                JMethod method = dispatch(c, subsignature);
+                if (method != null) {
+                    methods.add(method);
+                }
             });
         }
         return methods;
@@ -137,17 +128,6 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
      * can be found.
      */
     private JMethod dispatch(JClass jclass, Subsignature subsignature) {
-        // TODO - finish me
-
-        Collection<JMethod> declaredMethods = jclass.getDeclaredMethods();
-        for(JMethod method : declaredMethods) {
-            if(subsignature.equals(method.getSubsignature())) {
-                return method;
-            }
-        }
-        if(jclass.getSuperClass() != null) {
-            return dispatch(jclass.getSuperClass(), subsignature);
-        }
-        return null;
+        return hierarchy.dispatch(jclass, subsignature);
     }
 }
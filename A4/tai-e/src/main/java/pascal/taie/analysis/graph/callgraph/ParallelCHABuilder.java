@@ -0,0 +1,174 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.World;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.Subsignature;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.io.Serial;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Parallel implementation of the CHA algorithm.
+ * The reachable methods are expanded concurrently by the tasks on
+ * a fork-join pool, each of which resolves the call sites of one method,
+ * and forks the tasks for the callees that are discovered for the first
+ * time. As the methods are discovered in nondeterministic order, the
+ * resolved call edges are kept per method, and the call graph is
+ * assembled from them by a traversal from the entry method afterwards,
+ * so that the methods and edges are added in the same order on every run.
+ */
+class ParallelCHABuilder implements CGBuilder<Invoke, JMethod> {
+
+    private static final Comparator<JMethod> ORDER =
+            Comparator.comparing(JMethod::toString);
+
+    private ClassHierarchy hierarchy;
+
+    /**
+     * Methods which have been discovered as reachable.
+     */
+    private Set<JMethod> discovered;
+
+    /**
+     * Map from each discovered method to the call edges out of it,
+     * ordered by call sites and then by callees.
+     */
+    private Map<JMethod, List<Edge<Invoke, JMethod>>> methodEdges;
+
+    @Override
+    public CallGraph<Invoke, JMethod> build() {
+        hierarchy = World.get().getClassHierarchy();
+        return buildCallGraph(World.get().getMainMethod());
+    }
+
+    private CallGraph<Invoke, JMethod> buildCallGraph(JMethod entry) {
+        discovered = Sets.newConcurrentSet();
+        methodEdges = Maps.newConcurrentMap();
+        discovered.add(entry);
+        ForkJoinPool.commonPool().invoke(new Expansion(null, entry));
+        // assemble the call graph in deterministic order
+        DefaultCallGraph callGraph = new DefaultCallGraph();
+        callGraph.addEntryMethod(entry);
+        Queue<JMethod> workList = new ArrayDeque<>();
+        workList.add(entry);
+        while (!workList.isEmpty()) {
+            JMethod method = workList.poll();
+            if (callGraph.addReachableMethod(method)) {
+                methodEdges.get(method).forEach(edge -> {
+                    callGraph.addEdge(edge);
+                    workList.add(edge.getCallee());
+                });
+            }
+        }
+        return callGraph;
+    }
+
+    /**
+     * Task which resolves the call edges out of a method, and forks
+     * the tasks for the newly discovered callees. The root task
+     * completes when all the reachable methods are expanded.
+     */
+    private final class Expansion extends CountedCompleter<Void> {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final JMethod method;
+
+        private Expansion(CountedCompleter<?> parent, JMethod method) {
+            super(parent);
+            this.method = method;
+        }
+
+        @Override
+        public void compute() {
+            List<Edge<Invoke, JMethod>> edges = resolveEdges(method);
+            methodEdges.put(method, edges);
+            edges.forEach(edge -> {
+                JMethod callee = edge.getCallee();
+                if (discovered.add(callee)) {
+                    addToPendingCount(1);
+                    new Expansion(this, callee).fork();
+                }
+            });
+            tryComplete();
+        }
+    }
+
+    private List<Edge<Invoke, JMethod>> resolveEdges(JMethod method) {
+        if (method.isAbstract()) {
+            return List.of();
+        }
+        List<Edge<Invoke, JMethod>> edges = new ArrayList<>();
+        for (Stmt stmt : method.getIR()) {
+            if (stmt instanceof Invoke invoke) {
+                CallKind kind = CallGraphs.getCallKind(invoke);
+                resolve(invoke).forEach(callee ->
+                        edges.add(new Edge<>(kind, invoke, callee)));
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * Resolves call targets (callees) of a call site via CHA.
+     *
+     * @return the callees in deterministic order.
+     */
+    private List<JMethod> resolve(Invoke callSite) {
+        Subsignature subsignature = callSite.getMethodRef().getSubsignature();
+        JClass declaringClass = callSite.getMethodRef().getDeclaringClass();
+        if (callSite.isStatic() || callSite.isSpecial()) {
+            JMethod method = hierarchy.dispatch(declaringClass, subsignature);
+            return method != null ? List.of(method) : List.of();
+        } else if (callSite.isVirtual() || callSite.isInterface()) {
+            Set<JMethod> methods = new HashSet<>();
+            hierarchy.getAllSubclassesOf(declaringClass).forEach(c -> {
+                JMethod method = hierarchy.dispatch(c, subsignature);
+                if (method != null) {
+                    methods.add(method);
+                }
+            });
+            return methods.stream().sorted(ORDER).toList();
+        } else {
+            return List.of();
+        }
+    }
+}
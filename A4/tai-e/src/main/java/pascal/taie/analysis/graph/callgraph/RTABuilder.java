@@ -0,0 +1,173 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.World;
+import pascal.taie.ir.exp.NewInstance;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Implementation of the RTA (Rapid Type Analysis) algorithm.
+ * Different from CHA, the virtual calls are only dispatched to
+ * the classes which are instantiated in the reachable methods.
+ * The call graph is built incrementally: when a new class is
+ * instantiated, the call sites reached so far are dispatched on it,
+ * and when a new call site is reached, it is dispatched on
+ * the classes instantiated so far.
+ */
+class RTABuilder implements CGBuilder<Invoke, JMethod> {
+
+    private ClassHierarchy hierarchy;
+
+    private DefaultCallGraph callGraph;
+
+    private Queue<JMethod> workList;
+
+    /**
+     * Classes instantiated in the reachable methods.
+     */
+    private Set<JClass> instantiatedClasses;
+
+    /**
+     * Map from each class to the reachable virtual call sites
+     * whose method references are declared in the class.
+     */
+    private Map<JClass, List<Invoke>> virtualCallSites;
+
+    @Override
+    public CallGraph<Invoke, JMethod> build() {
+        hierarchy = World.get().getClassHierarchy();
+        return buildCallGraph(World.get().getMainMethod());
+    }
+
+    private CallGraph<Invoke, JMethod> buildCallGraph(JMethod entry) {
+        callGraph = new DefaultCallGraph();
+        callGraph.addEntryMethod(entry);
+        workList = new ArrayDeque<>();
+        instantiatedClasses = new HashSet<>();
+        virtualCallSites = new HashMap<>();
+        workList.add(entry);
+        while (!workList.isEmpty()) {
+            JMethod method = workList.poll();
+            if (callGraph.addReachableMethod(method) && !method.isAbstract()) {
+                method.getIR().forEach(this::processStmt);
+            }
+        }
+        return callGraph;
+    }
+
+    private void processStmt(Stmt stmt) {
+        if (stmt instanceof New newStmt) {
+            if (newStmt.getRValue() instanceof NewInstance newInstance) {
+                addInstantiatedClass(newInstance.getType().getJClass());
+            }
+        } else if (stmt instanceof Invoke invoke) {
+            if (invoke.isVirtual() || invoke.isInterface()) {
+                addVirtualCallSite(invoke);
+            } else if (invoke.isStatic() || invoke.isSpecial()) {
+                // static and special calls have the unique target
+                // regardless of the instantiated classes
+                dispatch(invoke, invoke.getMethodRef().getDeclaringClass());
+            }
+        }
+    }
+
+    /**
+     * Dispatches the reachable virtual call sites on a newly
+     * instantiated class, which can only receive the calls whose
+     * method references are declared in its superclasses
+     * (including itself) and superinterfaces.
+     */
+    private void addInstantiatedClass(JClass jclass) {
+        if (jclass == null || !instantiatedClasses.add(jclass)) {
+            return;
+        }
+        Set<JClass> visited = new HashSet<>();
+        Queue<JClass> supertypes = new ArrayDeque<>();
+        supertypes.add(jclass);
+        while (!supertypes.isEmpty()) {
+            JClass supertype = supertypes.poll();
+            if (visited.add(supertype)) {
+                virtualCallSites.getOrDefault(supertype, List.of())
+                        .forEach(callSite -> dispatch(callSite, jclass));
+                if (supertype.getSuperClass() != null) {
+                    supertypes.add(supertype.getSuperClass());
+                }
+                supertypes.addAll(supertype.getInterfaces());
+            }
+        }
+    }
+
+    /**
+     * Dispatches a newly reachable virtual call site on
+     * the instantiated subclasses of its declaring class.
+     */
+    private void addVirtualCallSite(Invoke callSite) {
+        JClass declaringClass = callSite.getMethodRef().getDeclaringClass();
+        virtualCallSites.computeIfAbsent(declaringClass, c -> new ArrayList<>())
+                .add(callSite);
+        // enumerates the smaller one of the subclasses and the instantiated classes
+        Collection<JClass> subclasses = hierarchy.getAllSubclassesOf(declaringClass);
+        if (subclasses.size() <= instantiatedClasses.size()) {
+            subclasses.forEach(c -> {
+                if (instantiatedClasses.contains(c)) {
+                    dispatch(callSite, c);
+                }
+            });
+        } else {
+            instantiatedClasses.forEach(c -> {
+                if (hierarchy.isSubclass(declaringClass, c)) {
+                    dispatch(callSite, c);
+                }
+            });
+        }
+    }
+
+    /**
+     * Adds the call edge from given call site to the method
+     * dispatched on given class, if it exists.
+     */
+    private void dispatch(Invoke callSite, JClass jclass) {
+        JMethod callee = hierarchy.dispatch(jclass,
+                callSite.getMethodRef().getSubsignature());
+        if (callee != null && callGraph.addEdge(new Edge<>(
+                CallGraphs.getCallKind(callSite), callSite, callee))) {
+            workList.add(callee);
+        }
+    }
+}
@@ -75,6 +75,21 @@ public interface ClassHierarchy {
      */
     Collection<JClass> getDirectSubclassesOf(JClass jclass);
 
+    /**
+     * Checks whether subclass is a subtype of superclass, i.e., subclass
+     * is superclass itself, or a direct or indirect subclass, implementor
+     * or subinterface of superclass. Every interface is regarded as
+     * a subtype of java.lang.Object.
+     * This is answered by interval labelling in (nearly) constant time.
+     */
+    boolean isSubclass(JClass superclass, JClass subclass);
+
+    /**
+     * @return all subtypes of given class (including itself) in the sense
+     * of {@link #isSubclass(JClass, JClass)}.
+     */
+    Collection<JClass> getAllSubclassesOf(JClass jclass);
+
     /**
      * Obtains a JRE class by it name.
      *
@@ -87,6 +102,16 @@ public interface ClassHierarchy {
 
     @Nullable JMethod resolveMethod(MethodRef methodRef);
 
+    /**
+     * Looks up the method invoked on an object of given class by
+     * the subsignature, i.e., the non-abstract method which is declared
+     * in the class or its nearest superclass, or the default method
+     * inherited from the superinterfaces if there is no such method.
+     *
+     * @return the dispatched method, or null if it cannot be found.
+     */
+    @Nullable JMethod dispatch(JClass jclass, Subsignature subsignature);
+
     /**
      * Obtains a method declared in a JRE class by its signature.
      *
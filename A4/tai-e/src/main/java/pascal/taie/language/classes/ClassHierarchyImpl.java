@@ -24,16 +24,30 @@ package pascal.taie.language.classes;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
+import pascal.taie.config.Configs;
+import pascal.taie.config.Options;
+import pascal.taie.config.PlanConfig;
 import pascal.taie.ir.proginfo.MethodRef;
 import pascal.taie.util.AnalysisException;
+import pascal.taie.util.ExitHooks;
 
 import javax.annotation.Nullable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static pascal.taie.util.collection.Maps.newConcurrentMap;
 import static pascal.taie.util.collection.Maps.newMap;
 import static pascal.taie.util.collection.Maps.newSmallMap;
 import static pascal.taie.util.collection.Sets.newHybridSet;
@@ -42,6 +56,16 @@ public class ClassHierarchyImpl implements ClassHierarchy {
 
     private static final Logger logger = LogManager.getLogger(ClassHierarchyImpl.class);
 
+    private static final String INDEX_DIR = "hierarchy-index";
+
+    /**
+     * Map from each index file to the classes of the latest hierarchy
+     * which updates it. When the JVM exits, the classes are written to
+     * their index files.
+     */
+    private static final Map<File, PendingIndex> pendingIndexes = ExitHooks.newMap(
+            "hierarchy-index", map -> map.forEach((file, index) -> index.save(file)));
+
     private JClassLoader defaultLoader;
 
     private JClassLoader bootstrapLoader;
@@ -65,6 +89,125 @@ public class ClassHierarchyImpl implements ClassHierarchy {
      */
     private final Map<JClass, Set<JClass>> directSubclasses = newMap();
 
+    /**
+     * Map from each class to its dispatch table, which maps subsignatures
+     * to the dispatched methods, and is filled lazily by {@link #dispatch}.
+     * The methods which cannot be found are kept as empty values.
+     */
+    private final Map<JClass, Map<Subsignature, Optional<JMethod>>> dispatchTables =
+            newConcurrentMap();
+
+    /**
+     * Interval labelling of the hierarchy for subtype queries, which is
+     * built lazily and discarded whenever a class is added.
+     */
+    private volatile Labelling labelling;
+
+    /**
+     * File of the index of the JRE classes, which is kept across runs
+     * with the same JRE, or null if this hierarchy is not built for
+     * a {@link World}.
+     */
+    @Nullable
+    private final File indexFile;
+
+    /**
+     * Index of the JRE classes, or null if it is absent or stale.
+     * The relations among the JRE classes which match the index are
+     * answered by the index, and are absent in the maps above, where
+     * the application classes and the JRE classes absent in the index
+     * are layered on top.
+     */
+    @Nullable
+    private volatile ClassHierarchyIndex jreIndex;
+
+    /**
+     * Map from id in {@link #jreIndex} to each JRE class added to this
+     * hierarchy, or null if the index is absent or stale.
+     */
+    @Nullable
+    private volatile JClass[] indexedClasses;
+
+    /**
+     * Caches of the direct relatives of the JRE classes, which merge
+     * the relatives in the index with the ones in the maps above,
+     * and are discarded whenever a class is added.
+     */
+    private final Map<JClass, Set<JClass>> mergedSubinterfaces = newConcurrentMap();
+
+    private final Map<JClass, Set<JClass>> mergedImplementors = newConcurrentMap();
+
+    private final Map<JClass, Set<JClass>> mergedSubclasses = newConcurrentMap();
+
+    /**
+     * Map from name to each JRE class added to this hierarchy.
+     */
+    private final Map<String, JClass> jreClasses = newMap();
+
+    /**
+     * The classes to be written to the index file, or null if this
+     * hierarchy is not indexed.
+     */
+    @Nullable
+    private final PendingIndex pendingIndex;
+
+    public ClassHierarchyImpl() {
+        this(getIndexFile());
+        if (indexFile != null) {
+            pendingIndexes.put(indexFile, pendingIndex);
+        }
+    }
+
+    /**
+     * Creates a hierarchy whose JRE classes are indexed in given file,
+     * which is not written back at exit unless {@link #saveIndex()}
+     * is called.
+     */
+    ClassHierarchyImpl(@Nullable File indexFile) {
+        this.indexFile = indexFile;
+        if (indexFile != null) {
+            ClassHierarchyIndex index = ClassHierarchyIndex.load(indexFile);
+            if (index != null) {
+                jreIndex = index;
+                indexedClasses = new JClass[index.size()];
+            }
+            pendingIndex = new PendingIndex(index);
+        } else {
+            pendingIndex = null;
+        }
+    }
+
+    /**
+     * @return the index file of the JRE of current {@link World},
+     * or null if there is no world or the index is not enabled by
+     * option "hierarchy-index" of the call graph analysis.
+     */
+    @Nullable
+    private static File getIndexFile() {
+        Options options = World.get() != null ? World.get().getOptions() : null;
+        if (options == null || !isIndexEnabled(options)) {
+            return null;
+        }
+        String jre = "jre" + options.getJavaVersion() +
+                (options.isPrependJVM() ? "-jvm" : "");
+        return new File(new File(Configs.getOutputDir(), INDEX_DIR), jre + ".bin");
+    }
+
+    private static boolean isIndexEnabled(Options options) {
+        try {
+            List<PlanConfig> plans = options.getPlanFile() != null
+                    ? PlanConfig.readConfigs(options.getPlanFile())
+                    : PlanConfig.readConfigs(options);
+            return plans.stream().anyMatch(plan ->
+                    plan.getId().equals(CallGraphBuilder.ID) &&
+                    plan.getOptions().getBooleanOrDefault("hierarchy-index", false));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read option hierarchy-index, " +
+                    "the class hierarchy is not indexed", e);
+            return false;
+        }
+    }
+
     @Override
     public void setDefaultClassLoader(JClassLoader loader) {
         this.defaultLoader = loader;
@@ -97,6 +240,50 @@ public class ClassHierarchyImpl implements ClassHierarchy {
 
     @Override
     public void addClass(JClass jclass) {
+        labelling = null;
+        mergedSubinterfaces.clear();
+        mergedImplementors.clear();
+        mergedSubclasses.clear();
+        if (pendingIndex != null && !jclass.isApplication()) {
+            jreClasses.put(jclass.getName(), jclass);
+            ClassHierarchyIndex index = jreIndex;
+            if (index != null) {
+                int id = index.getId(jclass.getName());
+                if (id == -1) {
+                    markIndexChanged();
+                } else if (index.matches(id, jclass)) {
+                    indexedClasses[id] = jclass;
+                    return;
+                } else {
+                    logger.info("Class hierarchy index {} is stale", indexFile);
+                    // add the relations of the JRE classes skipped so far
+                    jreIndex = null;
+                    indexedClasses = null;
+                    pendingIndex.base = null;
+                    markIndexChanged();
+                    jreClasses.values().forEach(this::addRelations);
+                    return;
+                }
+            }
+            if (pendingIndex.changed) {
+                pendingIndex.add(jclass);
+            }
+        }
+        addRelations(jclass);
+    }
+
+    /**
+     * Marks that the index differs from the JRE classes of this hierarchy,
+     * and records the JRE classes added so far to the pending index.
+     */
+    private void markIndexChanged() {
+        if (!pendingIndex.changed) {
+            pendingIndex.changed = true;
+            jreClasses.values().forEach(pendingIndex::add);
+        }
+    }
+
+    private void addRelations(JClass jclass) {
         // Add direct subinterface
         if (jclass.isInterface()) {
             jclass.getInterfaces().forEach(iface ->
@@ -147,17 +334,346 @@ public class ClassHierarchyImpl implements ClassHierarchy {
 
     @Override
     public Collection<JClass> getDirectSubinterfacesOf(JClass jclass) {
-        return directSubinterfaces.getOrDefault(jclass, Set.of());
+        return getDirectRelatives(directSubinterfaces, mergedSubinterfaces,
+                jclass, ClassHierarchyIndex.SUBINTERFACES);
     }
 
     @Override
     public Collection<JClass> getDirectImplementorsOf(JClass jclass) {
-        return directImplementors.getOrDefault(jclass, Set.of());
+        return getDirectRelatives(directImplementors, mergedImplementors,
+                jclass, ClassHierarchyIndex.IMPLEMENTORS);
     }
 
     @Override
     public Collection<JClass> getDirectSubclassesOf(JClass jclass) {
-        return directSubclasses.getOrDefault(jclass, Set.of());
+        return getDirectRelatives(directSubclasses, mergedSubclasses,
+                jclass, ClassHierarchyIndex.SUBCLASSES);
+    }
+
+    /**
+     * @return the direct relatives of given class in given map, together
+     * with the ones of given kind in the JRE index. The merged relatives
+     * are cached in given cache.
+     */
+    private Collection<JClass> getDirectRelatives(
+            Map<JClass, Set<JClass>> relation, Map<JClass, Set<JClass>> cache,
+            JClass jclass, int kind) {
+        Set<JClass> relatives = relation.getOrDefault(jclass, Set.of());
+        ClassHierarchyIndex index = jreIndex;
+        JClass[] classes = indexedClasses;
+        if (index == null || classes == null || jclass.isApplication()) {
+            return relatives;
+        }
+        return cache.computeIfAbsent(jclass, c -> {
+            int id = index.getId(c.getName());
+            if (id == -1) {
+                return relatives;
+            }
+            Set<JClass> result = null;
+            for (int relative : index.getRelatives(id, kind)) {
+                // the indexed classes which are not loaded in this run are skipped
+                JClass r = classes[relative];
+                if (r != null) {
+                    if (result == null) {
+                        result = newHybridSet(relatives);
+                    }
+                    result.add(r);
+                }
+            }
+            return result != null ? result : relatives;
+        });
+    }
+
+    /**
+     * @return true if the relations among the JRE classes are answered
+     * by the index, i.e., the index is present and up to date.
+     */
+    boolean isIndexed() {
+        return jreIndex != null;
+    }
+
+    /**
+     * Writes the JRE classes of this hierarchy to the index file,
+     * together with the indexed classes which are not loaded in this run.
+     */
+    void saveIndex() {
+        if (pendingIndex != null) {
+            pendingIndex.save(indexFile);
+        }
+    }
+
+    /**
+     * The JRE classes to be written to an index file. The classes are
+     * snapshotted as they are added, so that a pending index does not
+     * keep its hierarchy (and the world) alive until the JVM exits.
+     */
+    private static class PendingIndex {
+
+        /**
+         * The index which is up to date so far, whose classes are kept
+         * if they are not added in this run, or null if it is absent or stale.
+         */
+        @Nullable
+        private volatile ClassHierarchyIndex base;
+
+        /**
+         * Map from name to each JRE class added since the index changed.
+         */
+        private final Map<String, ClassHierarchyIndex.ClassInfo> classes =
+                newConcurrentMap();
+
+        /**
+         * Whether the JRE classes differ from the index.
+         */
+        private volatile boolean changed;
+
+        private PendingIndex(@Nullable ClassHierarchyIndex base) {
+            this.base = base;
+            this.changed = base == null;
+        }
+
+        private void add(JClass jclass) {
+            classes.put(jclass.getName(), ClassHierarchyIndex.ClassInfo.of(jclass));
+        }
+
+        private void save(File file) {
+            if (!changed) {
+                return;
+            }
+            Map<String, ClassHierarchyIndex.ClassInfo> merged = newMap();
+            ClassHierarchyIndex index = base;
+            if (index != null) {
+                index.forEachClass(c -> merged.put(c.name(), c));
+            }
+            merged.putAll(classes);
+            ClassHierarchyIndex.write(file, merged.values());
+        }
+    }
+
+    @Override
+    public boolean isSubclass(JClass superclass, JClass subclass) {
+        if (superclass.equals(subclass)) {
+            return true;
+        }
+        Labelling l = getLabelling();
+        Label sup = l.labels.get(superclass);
+        Label sub = l.labels.get(subclass);
+        return sup != null && sub != null && contains(
+                subclass.isInterface() ? sup.ifaceRanges : sup.classRanges,
+                sub.number);
+    }
+
+    @Override
+    public Collection<JClass> getAllSubclassesOf(JClass jclass) {
+        return getLabelling().getSubclassesOf(jclass);
+    }
+
+    private Labelling getLabelling() {
+        Labelling l = labelling;
+        if (l == null) {
+            synchronized (this) {
+                l = labelling;
+                if (l == null) {
+                    labelling = l = new Labelling(allClasses().toList());
+                }
+            }
+        }
+        return l;
+    }
+
+    /**
+     * @return true if given sorted disjoint ranges contain number.
+     */
+    private static boolean contains(int[] ranges, int number) {
+        int lo = 0, hi = ranges.length / 2 - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (number < ranges[2 * mid]) {
+                hi = mid - 1;
+            } else if (number > ranges[2 * mid + 1]) {
+                lo = mid + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Numbers and subtype ranges of a class in {@link Labelling}.
+     * The ranges are flattened as {@code [start0, end0, start1, end1, ...]}.
+     */
+    private static final class Label {
+
+        private static final int[] EMPTY = new int[0];
+
+        private final int number;
+
+        private int[] classRanges;
+
+        private int[] ifaceRanges = EMPTY;
+
+        private Label(int number) {
+            this.number = number;
+        }
+    }
+
+    /**
+     * Pre-order interval labelling of the hierarchy. Classes are numbered
+     * by a depth-first traversal of the subclass tree, so that the
+     * subclasses of a class occupy one contiguous range of numbers.
+     * Interfaces are numbered in a separate space by a traversal of the
+     * subinterface graph. As an interface may have several superinterfaces
+     * and its implementors are scattered over the class tree, its subtypes
+     * are described by a few sorted disjoint ranges in each space.
+     */
+    private final class Labelling {
+
+        private final Map<JClass, Label> labels = newMap();
+
+        /**
+         * Classes (excluding interfaces) in pre-order.
+         */
+        private final List<JClass> classes = new ArrayList<>();
+
+        private final List<JClass> interfaces = new ArrayList<>();
+
+        /**
+         * Cache of the subclasses which span more than one range.
+         */
+        private final Map<JClass, List<JClass>> subclasses = newConcurrentMap();
+
+        private Labelling(List<JClass> allClasses) {
+            // number classes, starting from the roots of the subclass tree
+            allClasses.forEach(c -> {
+                if (!c.isInterface() && c.getSuperClass() == null) {
+                    numberClass(c);
+                }
+            });
+            allClasses.forEach(c -> {
+                if (!c.isInterface() && !labels.containsKey(c)) {
+                    numberClass(c);
+                }
+            });
+            // number interfaces, starting from the roots of the subinterface graph
+            allClasses.forEach(c -> {
+                if (c.isInterface() && c.getInterfaces().isEmpty()) {
+                    numberInterface(c);
+                }
+            });
+            allClasses.forEach(c -> {
+                if (c.isInterface() && !labels.containsKey(c)) {
+                    numberInterface(c);
+                }
+            });
+            interfaces.forEach(this::computeRanges);
+            // every interface is a subtype of java.lang.Object
+            if (!interfaces.isEmpty()) {
+                allClasses.forEach(c -> {
+                    if (c.getSuperClass() == null && !c.isInterface()
+                            && c.getName().equals("java.lang.Object")) {
+                        labels.get(c).ifaceRanges =
+                                new int[]{ 0, interfaces.size() - 1 };
+                    }
+                });
+            }
+        }
+
+        private void numberClass(JClass jclass) {
+            Label label = new Label(classes.size());
+            classes.add(jclass);
+            labels.put(jclass, label);
+            getDirectSubclassesOf(jclass).forEach(subclass -> {
+                if (!labels.containsKey(subclass)) {
+                    numberClass(subclass);
+                }
+            });
+            label.classRanges = new int[]{ label.number, classes.size() - 1 };
+        }
+
+        private void numberInterface(JClass iface) {
+            if (!labels.containsKey(iface)) {
+                labels.put(iface, new Label(interfaces.size()));
+                interfaces.add(iface);
+                getDirectSubinterfacesOf(iface).forEach(this::numberInterface);
+            }
+        }
+
+        /**
+         * Computes the subtype ranges of given interface from the ranges
+         * of its direct implementors and subinterfaces.
+         */
+        private Label computeRanges(JClass iface) {
+            Label label = labels.get(iface);
+            if (label.classRanges == null) {
+                List<int[]> classRanges = new ArrayList<>();
+                List<int[]> ifaceRanges = new ArrayList<>();
+                ifaceRanges.add(new int[]{ label.number, label.number });
+                getDirectImplementorsOf(iface).forEach(implementor -> {
+                    Label l = labels.get(implementor);
+                    if (l != null) {
+                        classRanges.add(l.classRanges);
+                    }
+                });
+                getDirectSubinterfacesOf(iface).forEach(subinterface -> {
+                    Label l = computeRanges(subinterface);
+                    classRanges.add(l.classRanges);
+                    ifaceRanges.add(l.ifaceRanges);
+                });
+                label.classRanges = merge(classRanges);
+                label.ifaceRanges = merge(ifaceRanges);
+            }
+            return label;
+        }
+
+        /**
+         * Merges given ranges into sorted disjoint ranges, where
+         * the adjacent ranges are coalesced.
+         */
+        private static int[] merge(List<int[]> rangesList) {
+            List<int[]> ranges = new ArrayList<>();
+            rangesList.forEach(r -> {
+                for (int i = 0; i < r.length; i += 2) {
+                    ranges.add(new int[]{ r[i], r[i + 1] });
+                }
+            });
+            ranges.sort(Comparator.comparingInt(r -> r[0]));
+            int[] result = new int[ranges.size() * 2];
+            int n = 0;
+            for (int[] r : ranges) {
+                if (n > 0 && r[0] <= result[n - 1] + 1) {
+                    result[n - 1] = Math.max(result[n - 1], r[1]);
+                } else {
+                    result[n++] = r[0];
+                    result[n++] = r[1];
+                }
+            }
+            return n == result.length ? result : Arrays.copyOf(result, n);
+        }
+
+        private Collection<JClass> getSubclassesOf(JClass jclass) {
+            Label label = labels.get(jclass);
+            if (label == null) {
+                return List.of(jclass);
+            }
+            if (label.classRanges.length == 2 && label.ifaceRanges.length == 0) {
+                return Collections.unmodifiableList(classes.subList(
+                        label.classRanges[0], label.classRanges[1] + 1));
+            }
+            return subclasses.computeIfAbsent(jclass, c -> {
+                List<JClass> result = new ArrayList<>();
+                addRanges(result, interfaces, label.ifaceRanges);
+                addRanges(result, classes, label.classRanges);
+                return Collections.unmodifiableList(result);
+            });
+        }
+
+        private static void addRanges(
+                List<JClass> result, List<JClass> classes, int[] ranges) {
+            for (int i = 0; i < ranges.length; i += 2) {
+                result.addAll(classes.subList(ranges[i], ranges[i + 1] + 1));
+            }
+        }
     }
 
     private static boolean checkCHA = false;
@@ -193,6 +709,16 @@ public class ClassHierarchyImpl implements ClassHierarchy {
         return null;
     }
 
+    @Override
+    public @Nullable
+    JMethod dispatch(JClass jclass, Subsignature subsignature) {
+        return dispatchTables
+                .computeIfAbsent(jclass, c -> newConcurrentMap())
+                .computeIfAbsent(subsignature, subsig ->
+                        Optional.ofNullable(lookupMethod(jclass, subsig, false)))
+                .orElse(null);
+    }
+
     private JMethod lookupMethod(JClass jclass, Subsignature subsignature,
                                  boolean allowAbstract) {
         for (JClass c = jclass; c != null; c = c.getSuperClass()) {
@@ -0,0 +1,406 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.language.classes;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static pascal.taie.util.collection.Maps.newMap;
+
+/**
+ * Read-only index of a class hierarchy, which is persisted in a binary
+ * file and memory-mapped when it is loaded, so that only the classes
+ * being looked up are read.
+ * <p>
+ * The classes are identified by their positions in the index, where
+ * they are sorted by the UTF-8 bytes of their names. The file has
+ * the following layout (in big-endian):
+ * <pre>
+ * int magic, int version, int classes
+ * classes * (int name, int flags, int superclass, int relations)
+ * data
+ * </pre>
+ * where names, superclasses and relations are offsets relative to the
+ * start of the data, and the superclass is -1 if absent. The data holds
+ * the strings (each as an unsigned short length followed by the UTF-8
+ * bytes) and the relations of each class, i.e., the names of its
+ * interfaces, the ids of its direct subclasses, implementors and
+ * subinterfaces, and its declared method subsignatures, each of which
+ * is an int count followed by the ints.
+ */
+final class ClassHierarchyIndex {
+
+    private static final Logger logger = LogManager.getLogger(ClassHierarchyIndex.class);
+
+    private static final int MAGIC = 0x54414948; // "TAIH"
+
+    private static final int VERSION = 1;
+
+    /**
+     * Size of the header, i.e., magic, version and number of classes.
+     */
+    private static final int HEADER_SIZE = 12;
+
+    /**
+     * Size of the record of a class.
+     */
+    private static final int RECORD_SIZE = 16;
+
+    private static final int INTERFACE = 1;
+
+    static final int INTERFACES = 0;
+
+    static final int SUBCLASSES = 1;
+
+    static final int IMPLEMENTORS = 2;
+
+    static final int SUBINTERFACES = 3;
+
+    static final int SUBSIGNATURES = 4;
+
+    private final ByteBuffer records;
+
+    private final ByteBuffer data;
+
+    private final int size;
+
+    private ClassHierarchyIndex(ByteBuffer records, ByteBuffer data, int size) {
+        this.records = records;
+        this.data = data;
+        this.size = size;
+    }
+
+    /**
+     * @return the index in given file, or null if the file is absent
+     * or cannot be read.
+     */
+    @Nullable
+    static ClassHierarchyIndex load(File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                logger.warn("Ignored class hierarchy index {} of unknown format", file);
+                return null;
+            }
+            int size = buffer.getInt();
+            int dataStart = HEADER_SIZE + size * RECORD_SIZE;
+            return new ClassHierarchyIndex(
+                    buffer.slice(HEADER_SIZE, size * RECORD_SIZE),
+                    buffer.slice(dataStart, buffer.limit() - dataStart),
+                    size);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to load class hierarchy index {}", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * @return number of the classes in this index, whose ids range
+     * from 0 to the number minus one.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the id of the class of given name, or -1 if the class
+     * is absent in this index.
+     */
+    int getId(String name) {
+        byte[] key = name.getBytes(StandardCharsets.UTF_8);
+        int lo = 0, hi = size - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compare(records.getInt(mid * RECORD_SIZE), key);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    String getName(int id) {
+        return getString(records.getInt(id * RECORD_SIZE));
+    }
+
+    /**
+     * @return the relatives of given kind of a class, i.e., the offsets of
+     * the strings for {@link #INTERFACES} and {@link #SUBSIGNATURES},
+     * and the ids of the classes for the other kinds.
+     */
+    int[] getRelatives(int id, int kind) {
+        int offset = records.getInt(id * RECORD_SIZE + 12);
+        for (int i = 0; i < kind; ++i) {
+            offset += (data.getInt(offset) + 1) * Integer.BYTES;
+        }
+        int[] relatives = new int[data.getInt(offset)];
+        for (int i = 0; i < relatives.length; ++i) {
+            relatives[i] = data.getInt(offset + (i + 1) * Integer.BYTES);
+        }
+        return relatives;
+    }
+
+    /**
+     * @return true if given class has the same kind, superclass,
+     * interfaces and number of declared methods as the class of
+     * given id in this index.
+     */
+    boolean matches(int id, JClass jclass) {
+        int record = id * RECORD_SIZE;
+        if (((records.getInt(record + 4) & INTERFACE) != 0) != jclass.isInterface()) {
+            return false;
+        }
+        int superclass = records.getInt(record + 8);
+        JClass actualSuperclass = jclass.getSuperClass();
+        if (actualSuperclass == null ? superclass != -1 : superclass == -1
+                || compare(superclass, toBytes(actualSuperclass)) != 0) {
+            return false;
+        }
+        int[] interfaces = getRelatives(id, INTERFACES);
+        if (interfaces.length != jclass.getInterfaces().size()) {
+            return false;
+        }
+        int i = 0;
+        for (JClass iface : jclass.getInterfaces()) {
+            if (compare(interfaces[i++], toBytes(iface)) != 0) {
+                return false;
+            }
+        }
+        return getRelatives(id, SUBSIGNATURES).length
+                == jclass.getDeclaredMethods().size();
+    }
+
+    /**
+     * Passes the information of each class in this index to given action.
+     */
+    void forEachClass(Consumer<ClassInfo> action) {
+        for (int id = 0; id < size; ++id) {
+            int record = id * RECORD_SIZE;
+            int superclass = records.getInt(record + 8);
+            action.accept(new ClassInfo(getName(id),
+                    (records.getInt(record + 4) & INTERFACE) != 0,
+                    superclass == -1 ? null : getString(superclass),
+                    getStrings(getRelatives(id, INTERFACES)),
+                    getStrings(getRelatives(id, SUBSIGNATURES))));
+        }
+    }
+
+    private List<String> getStrings(int[] offsets) {
+        return Arrays.stream(offsets).mapToObj(this::getString).toList();
+    }
+
+    private String getString(int offset) {
+        int length = Short.toUnsignedInt(data.getShort(offset));
+        byte[] bytes = new byte[length];
+        data.get(offset + Short.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compares the string at given offset with key by their UTF-8 bytes.
+     */
+    private int compare(int offset, byte[] key) {
+        int length = Short.toUnsignedInt(data.getShort(offset));
+        int n = Math.min(length, key.length);
+        for (int i = 0; i < n; ++i) {
+            int cmp = Byte.compareUnsigned(data.get(offset + Short.BYTES + i), key[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    private static byte[] toBytes(JClass jclass) {
+        return jclass.getName().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the index of given classes to file. The superclasses and
+     * interfaces of the classes need not be in the index, while the direct
+     * subclasses, implementors and subinterfaces are derived from them.
+     */
+    static void write(File file, Collection<ClassInfo> classes) {
+        List<ClassInfo> sorted = new ArrayList<>(classes);
+        sorted.sort((c1, c2) -> Arrays.compareUnsigned(
+                c1.name().getBytes(StandardCharsets.UTF_8),
+                c2.name().getBytes(StandardCharsets.UTF_8)));
+        Map<String, Integer> ids = newMap(sorted.size());
+        for (int i = 0; i < sorted.size(); ++i) {
+            ids.put(sorted.get(i).name(), i);
+        }
+        List<List<Integer>> subclasses = newLists(sorted.size());
+        List<List<Integer>> implementors = newLists(sorted.size());
+        List<List<Integer>> subinterfaces = newLists(sorted.size());
+        for (int i = 0; i < sorted.size(); ++i) {
+            ClassInfo c = sorted.get(i);
+            Integer superclass = c.superclass() == null ? null : ids.get(c.superclass());
+            if (superclass != null && !c.isInterface()) {
+                subclasses.get(superclass).add(i);
+            }
+            for (String name : c.interfaces()) {
+                Integer iface = ids.get(name);
+                if (iface != null) {
+                    (c.isInterface() ? subinterfaces : implementors).get(iface).add(i);
+                }
+            }
+        }
+        StringPool strings = new StringPool();
+        sorted.forEach(c -> {
+            strings.offsetOf(c.name());
+            c.interfaces().forEach(strings::offsetOf);
+            c.subsignatures().forEach(strings::offsetOf);
+        });
+        ByteArrayOutputStream relationBytes = new ByteArrayOutputStream();
+        int[] relations = new int[sorted.size()];
+        try (DataOutputStream out = new DataOutputStream(relationBytes)) {
+            for (int i = 0; i < sorted.size(); ++i) {
+                ClassInfo c = sorted.get(i);
+                relations[i] = strings.size() + out.size();
+                writeInts(out, c.interfaces().stream().map(strings::offsetOf).toList());
+                writeInts(out, subclasses.get(i));
+                writeInts(out, implementors.get(i));
+                writeInts(out, subinterfaces.get(i));
+                writeInts(out, c.subsignatures().stream().map(strings::offsetOf).toList());
+            }
+        } catch (IOException e) {
+            // writing to a byte array never fails
+            throw new RuntimeException(e);
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(sorted.size());
+                for (int i = 0; i < sorted.size(); ++i) {
+                    ClassInfo c = sorted.get(i);
+                    out.writeInt(strings.offsetOf(c.name()));
+                    out.writeInt(c.isInterface() ? INTERFACE : 0);
+                    out.writeInt(c.superclass() == null ? -1
+                            : strings.offsetOf(c.superclass()));
+                    out.writeInt(relations[i]);
+                }
+                strings.bytes.writeTo(out);
+                relationBytes.writeTo(out);
+            }
+            Files.move(tmp.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warn("Failed to write class hierarchy index {}", file, e);
+        }
+    }
+
+    private static List<List<Integer>> newLists(int n) {
+        List<List<Integer>> lists = new ArrayList<>(n);
+        for (int i = 0; i < n; ++i) {
+            lists.add(new ArrayList<>());
+        }
+        return lists;
+    }
+
+    private static void writeInts(DataOutputStream out, List<Integer> ints)
+            throws IOException {
+        out.writeInt(ints.size());
+        for (int i : ints) {
+            out.writeInt(i);
+        }
+    }
+
+    /**
+     * Pool of the strings in the data, each of which is written once.
+     */
+    private static final class StringPool {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        private final Map<String, Integer> offsets = newMap();
+
+        private int offsetOf(String s) {
+            return offsets.computeIfAbsent(s, unused -> {
+                int offset = bytes.size();
+                byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+                bytes.write(utf8.length >>> 8);
+                bytes.write(utf8.length);
+                bytes.write(utf8, 0, utf8.length);
+                return offset;
+            });
+        }
+
+        private int size() {
+            return bytes.size();
+        }
+    }
+
+    /**
+     * Information of a class kept in the index.
+     *
+     * @param superclass    name of the superclass, or null if absent
+     * @param interfaces    names of the direct superinterfaces
+     * @param subsignatures subsignatures of the declared methods
+     */
+    record ClassInfo(String name, boolean isInterface, @Nullable String superclass,
+                     List<String> interfaces, List<String> subsignatures) {
+
+        static ClassInfo of(JClass jclass) {
+            JClass superclass = jclass.getSuperClass();
+            return new ClassInfo(jclass.getName(), jclass.isInterface(),
+                    superclass == null ? null : superclass.getName(),
+                    jclass.getInterfaces().stream().map(JClass::getName).toList(),
+                    jclass.getDeclaredMethods()
+                            .stream()
+                            .map(m -> m.getSubsignature().toString())
+                            .toList());
+        }
+    }
+}
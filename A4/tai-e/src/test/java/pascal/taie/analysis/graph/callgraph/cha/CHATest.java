@@ -50,4 +50,16 @@ public class CHATest {
     public void testAbstractMethod() {
         test("AbstractMethod");
     }
+
+    /**
+     * The parallel builder must build the same call graphs as CHABuilder.
+     */
+    @Test
+    public void testParallel() {
+        for (String main : new String[]{
+                "StaticCall", "VirtualCall", "Interface", "AbstractMethod" }) {
+            Tests.test(main, "src/test/resources/cha/", "cg",
+                    "algorithm:cha;parallel:true");
+        }
+    }
 }
@@ -0,0 +1,264 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.language.classes;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the hierarchies whose JRE classes are answered by
+ * {@link ClassHierarchyIndex} have the same relations as the ones
+ * built without the index.
+ */
+public class ClassHierarchyIndexTest {
+
+    private File dir;
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("hierarchy-index").toFile();
+        file = new File(dir, "jre.bin");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<File> files = Files.walk(dir.toPath())
+                .sorted(Comparator.reverseOrder())
+                .map(Path::toFile)) {
+            files.forEach(File::delete);
+        }
+    }
+
+    /**
+     * Builds the JRE classes:
+     * <pre>
+     * interface Collection
+     * interface List extends Collection
+     * interface RandomAccess
+     * class AbstractList implements List
+     * class ArrayList extends AbstractList implements List, RandomAccess
+     * </pre>
+     * and, if withVector is true, class Vector extends AbstractList.
+     * If stale is true, ArrayList does not implement RandomAccess.
+     */
+    private static TestClassLoader newJRE(boolean withVector, boolean stale) {
+        TestClassLoader loader = new TestClassLoader();
+        JClass object = loader.newClass("java.lang.Object", false, false, null, List.of());
+        JClass collection = loader.newClass("java.util.Collection", true, false, object, List.of());
+        JClass list = loader.newClass("java.util.List", true, false, object, List.of(collection));
+        JClass randomAccess = loader.newClass("java.util.RandomAccess", true, false, object, List.of());
+        JClass abstractList = loader.newClass("java.util.AbstractList", false, false, object, List.of(list));
+        loader.newClass("java.util.ArrayList", false, false, abstractList,
+                stale ? List.of(list) : List.of(list, randomAccess));
+        if (withVector) {
+            loader.newClass("java.util.Vector", false, false, abstractList, List.of());
+        }
+        return loader;
+    }
+
+    /**
+     * Adds the application classes:
+     * <pre>
+     * interface MyList extends List
+     * class MyArrayList extends ArrayList implements MyList
+     * </pre>
+     */
+    private static TestClassLoader addApplication(TestClassLoader loader) {
+        JClass object = loader.loadClass("java.lang.Object");
+        JClass myList = loader.newClass("MyList", true, true, object,
+                List.of(loader.loadClass("java.util.List")));
+        loader.newClass("MyArrayList", false, true,
+                loader.loadClass("java.util.ArrayList"), List.of(myList));
+        return loader;
+    }
+
+    /**
+     * Builds and saves the index of the JRE classes.
+     */
+    private ClassHierarchyImpl saveIndex(TestClassLoader loader) {
+        ClassHierarchyImpl hierarchy = loader.addTo(new ClassHierarchyImpl(file));
+        assertFalse(hierarchy.isIndexed());
+        hierarchy.saveIndex();
+        assertTrue(file.exists());
+        return hierarchy;
+    }
+
+    private static Set<String> names(Collection<JClass> classes) {
+        return classes.stream().map(JClass::getName).collect(Collectors.toSet());
+    }
+
+    /**
+     * Checks that given hierarchies have the same direct relations
+     * and subtypes, where the classes are matched by their names.
+     */
+    private static void assertSameRelations(ClassHierarchy expected,
+                                            ClassHierarchy actual) {
+        assertEquals(names(expected.allClasses().toList()),
+                names(actual.allClasses().toList()));
+        expected.allClasses().forEach(e -> {
+            JClass a = actual.getClass(e.getName());
+            assertEquals("subclasses of " + e,
+                    names(expected.getDirectSubclassesOf(e)),
+                    names(actual.getDirectSubclassesOf(a)));
+            assertEquals("implementors of " + e,
+                    names(expected.getDirectImplementorsOf(e)),
+                    names(actual.getDirectImplementorsOf(a)));
+            assertEquals("subinterfaces of " + e,
+                    names(expected.getDirectSubinterfacesOf(e)),
+                    names(actual.getDirectSubinterfacesOf(a)));
+            assertEquals("all subclasses of " + e,
+                    names(expected.getAllSubclassesOf(e)),
+                    names(actual.getAllSubclassesOf(a)));
+        });
+    }
+
+    @Test
+    public void testRoundTrip() {
+        saveIndex(newJRE(true, false));
+        ClassHierarchyImpl indexed = newJRE(true, false)
+                .addTo(new ClassHierarchyImpl(file));
+        assertTrue(indexed.isIndexed());
+        assertSameRelations(newJRE(true, false).addTo(new ClassHierarchyImpl(null)),
+                indexed);
+        // the relations are answered by the index,
+        // and are the same when they are queried again
+        JClass abstractList = indexed.getClass("java.util.AbstractList");
+        assertEquals(Set.of("java.util.ArrayList", "java.util.Vector"),
+                names(indexed.getDirectSubclassesOf(abstractList)));
+        assertEquals(Set.of("java.util.ArrayList", "java.util.Vector"),
+                names(indexed.getDirectSubclassesOf(abstractList)));
+    }
+
+    @Test
+    public void testClassesAbsentInRun() {
+        saveIndex(newJRE(true, false));
+        // Vector is indexed, but not loaded in this run
+        ClassHierarchyImpl indexed = newJRE(false, false)
+                .addTo(new ClassHierarchyImpl(file));
+        assertTrue(indexed.isIndexed());
+        assertSameRelations(newJRE(false, false).addTo(new ClassHierarchyImpl(null)),
+                indexed);
+        // the index is unchanged, thus it still contains Vector
+        indexed.saveIndex();
+        ClassHierarchyImpl reloaded = newJRE(true, false)
+                .addTo(new ClassHierarchyImpl(file));
+        assertTrue(reloaded.isIndexed());
+        assertSameRelations(newJRE(true, false).addTo(new ClassHierarchyImpl(null)),
+                reloaded);
+    }
+
+    @Test
+    public void testClassesAbsentInIndex() {
+        saveIndex(newJRE(false, false));
+        // Vector is loaded, but not indexed
+        ClassHierarchyImpl indexed = newJRE(true, false)
+                .addTo(new ClassHierarchyImpl(file));
+        assertTrue(indexed.isIndexed());
+        assertSameRelations(newJRE(true, false).addTo(new ClassHierarchyImpl(null)),
+                indexed);
+        // Vector is added to the index when it is saved
+        indexed.saveIndex();
+        ClassHierarchyImpl reloaded = newJRE(true, false)
+                .addTo(new ClassHierarchyImpl(file));
+        assertSameRelations(newJRE(true, false).addTo(new ClassHierarchyImpl(null)),
+                reloaded);
+        JClass abstractList = reloaded.getClass("java.util.AbstractList");
+        assertEquals(Set.of("java.util.ArrayList", "java.util.Vector"),
+                names(reloaded.getDirectSubclassesOf(abstractList)));
+    }
+
+    @Test
+    public void testStaleIndex() {
+        saveIndex(newJRE(true, false));
+        // ArrayList differs from the index, thus the index is dropped,
+        // and the relations of the classes added before are recovered
+        ClassHierarchyImpl stale = newJRE(true, true)
+                .addTo(new ClassHierarchyImpl(file));
+        assertFalse(stale.isIndexed());
+        assertSameRelations(newJRE(true, true).addTo(new ClassHierarchyImpl(null)),
+                stale);
+        JClass randomAccess = stale.getClass("java.util.RandomAccess");
+        assertEquals(Set.of(), names(stale.getDirectImplementorsOf(randomAccess)));
+        // the index is rebuilt when it is saved
+        stale.saveIndex();
+        ClassHierarchyImpl rebuilt = newJRE(true, true)
+                .addTo(new ClassHierarchyImpl(file));
+        assertTrue(rebuilt.isIndexed());
+        assertSameRelations(newJRE(true, true).addTo(new ClassHierarchyImpl(null)),
+                rebuilt);
+    }
+
+    @Test
+    public void testApplicationClasses() {
+        saveIndex(newJRE(true, false));
+        // the application classes are layered on the indexed JRE classes
+        ClassHierarchyImpl indexed = addApplication(newJRE(true, false))
+                .addTo(new ClassHierarchyImpl(file));
+        assertTrue(indexed.isIndexed());
+        assertSameRelations(
+                addApplication(newJRE(true, false)).addTo(new ClassHierarchyImpl(null)),
+                indexed);
+        JClass list = indexed.getClass("java.util.List");
+        assertEquals(Set.of("MyList"), names(indexed.getDirectSubinterfacesOf(list)));
+        assertEquals(Set.of("java.util.AbstractList", "java.util.ArrayList"),
+                names(indexed.getDirectImplementorsOf(list)));
+        JClass arrayList = indexed.getClass("java.util.ArrayList");
+        assertEquals(Set.of("MyArrayList"), names(indexed.getDirectSubclassesOf(arrayList)));
+        assertTrue(indexed.isSubclass(list, indexed.getClass("MyArrayList")));
+        // the application classes are not written to the index
+        indexed.saveIndex();
+        ClassHierarchyImpl reloaded = newJRE(true, false)
+                .addTo(new ClassHierarchyImpl(file));
+        assertTrue(reloaded.isIndexed());
+        assertSameRelations(newJRE(true, false).addTo(new ClassHierarchyImpl(null)),
+                reloaded);
+    }
+
+    @Test
+    public void testCorruptIndex() throws IOException {
+        Files.write(file.toPath(), new byte[]{ 1, 2, 3 });
+        ClassHierarchyImpl hierarchy = newJRE(true, false)
+                .addTo(new ClassHierarchyImpl(file));
+        assertFalse(hierarchy.isIndexed());
+        assertSameRelations(newJRE(true, false).addTo(new ClassHierarchyImpl(null)),
+                hierarchy);
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.language.classes;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the subtype queries answered by the interval labelling of
+ * {@link ClassHierarchyImpl} against a traversal of the direct relations.
+ */
+public class LabellingTest {
+
+    /**
+     * @return the subtypes of given class, i.e., the classes reachable from
+     * it via the direct subclasses, implementors and subinterfaces,
+     * where every interface is a subtype of java.lang.Object.
+     */
+    private static Set<JClass> traverse(ClassHierarchy hierarchy, JClass jclass) {
+        Set<JClass> subtypes = new HashSet<>();
+        if (jclass.getName().equals("java.lang.Object")) {
+            hierarchy.allClasses()
+                    .filter(JClass::isInterface)
+                    .forEach(subtypes::add);
+        }
+        Queue<JClass> queue = new ArrayDeque<>();
+        subtypes.add(jclass);
+        queue.add(jclass);
+        while (!queue.isEmpty()) {
+            JClass c = queue.poll();
+            List<JClass> relatives = new ArrayList<>();
+            relatives.addAll(hierarchy.getDirectSubclassesOf(c));
+            relatives.addAll(hierarchy.getDirectImplementorsOf(c));
+            relatives.addAll(hierarchy.getDirectSubinterfacesOf(c));
+            for (JClass relative : relatives) {
+                if (subtypes.add(relative)) {
+                    queue.add(relative);
+                }
+            }
+        }
+        return subtypes;
+    }
+
+    private static void checkSubtypes(ClassHierarchy hierarchy) {
+        List<JClass> classes = hierarchy.allClasses().toList();
+        for (JClass sup : classes) {
+            Set<JClass> expected = traverse(hierarchy, sup);
+            List<JClass> actual = List.copyOf(hierarchy.getAllSubclassesOf(sup));
+            assertEquals("subclasses of " + sup, expected, new HashSet<>(actual));
+            assertEquals("duplicate subclasses of " + sup,
+                    actual.size(), new HashSet<>(actual).size());
+            for (JClass sub : classes) {
+                assertEquals(sup + " :> " + sub, expected.contains(sub),
+                        hierarchy.isSubclass(sup, sub));
+            }
+        }
+    }
+
+    /**
+     * <pre>
+     * interface J, K
+     * interface I extends J, K
+     * class C implements I
+     * class D extends C implements K
+     * class E implements J
+     * class F
+     * </pre>
+     */
+    @Test
+    public void testMultipleSuperinterfaces() {
+        TestClassLoader loader = new TestClassLoader();
+        JClass object = loader.newClass("java.lang.Object", false, false, null, List.of());
+        JClass j = loader.newClass("J", true, true, object, List.of());
+        JClass k = loader.newClass("K", true, true, object, List.of());
+        JClass i = loader.newClass("I", true, true, object, List.of(j, k));
+        JClass c = loader.newClass("C", false, true, object, List.of(i));
+        JClass d = loader.newClass("D", false, true, c, List.of(k));
+        JClass e = loader.newClass("E", false, true, object, List.of(j));
+        JClass f = loader.newClass("F", false, true, object, List.of());
+        ClassHierarchy hierarchy = loader.addTo(new ClassHierarchyImpl());
+        assertEquals(Set.of(j, i, c, d, e), new HashSet<>(hierarchy.getAllSubclassesOf(j)));
+        assertEquals(Set.of(k, i, c, d), new HashSet<>(hierarchy.getAllSubclassesOf(k)));
+        assertTrue(hierarchy.isSubclass(k, d));
+        assertTrue(hierarchy.isSubclass(j, d));
+        assertTrue(hierarchy.isSubclass(object, i));
+        assertFalse(hierarchy.isSubclass(i, e));
+        assertFalse(hierarchy.isSubclass(c, f));
+        assertFalse(hierarchy.isSubclass(d, c));
+        checkSubtypes(hierarchy);
+    }
+
+    /**
+     * Checks random hierarchies, where interfaces have several
+     * superinterfaces and classes implement several interfaces.
+     */
+    @Test
+    public void testRandomHierarchies() {
+        Random random = new Random(0);
+        for (int n = 0; n < 20; ++n) {
+            TestClassLoader loader = new TestClassLoader();
+            JClass object = loader.newClass(
+                    "java.lang.Object", false, false, null, List.of());
+            List<JClass> interfaces = new ArrayList<>();
+            for (int i = 0; i < 15; ++i) {
+                interfaces.add(loader.newClass("I" + i, true, true, object,
+                        pick(random, interfaces, 3)));
+            }
+            List<JClass> classes = new ArrayList<>(List.of(object));
+            for (int i = 0; i < 40; ++i) {
+                JClass superclass = classes.get(random.nextInt(classes.size()));
+                classes.add(loader.newClass("C" + i, false, true, superclass,
+                        pick(random, interfaces, 3)));
+            }
+            checkSubtypes(loader.addTo(new ClassHierarchyImpl()));
+        }
+    }
+
+    /**
+     * @return at most max distinct elements picked from given list.
+     */
+    private static List<JClass> pick(Random random, List<JClass> list, int max) {
+        Set<JClass> picked = new HashSet<>();
+        int n = list.isEmpty() ? 0 : random.nextInt(max + 1);
+        for (int i = 0; i < n; ++i) {
+            picked.add(list.get(random.nextInt(list.size())));
+        }
+        return List.copyOf(picked);
+    }
+
+    @Test
+    public void testAddClassAfterQueries() {
+        TestClassLoader loader = new TestClassLoader();
+        JClass object = loader.newClass("java.lang.Object", false, false, null, List.of());
+        JClass i = loader.newClass("I", true, true, object, List.of());
+        JClass a = loader.newClass("A", false, true, object, List.of());
+        ClassHierarchy hierarchy = loader.addTo(new ClassHierarchyImpl());
+        assertEquals(Set.of(i), new HashSet<>(hierarchy.getAllSubclassesOf(i)));
+        // the labelling is rebuilt when a class is added
+        JClass b = loader.newClass("B", false, true, a, List.of(i));
+        hierarchy.addClass(b);
+        assertTrue(hierarchy.isSubclass(i, b));
+        assertTrue(hierarchy.isSubclass(a, b));
+        checkSubtypes(hierarchy);
+    }
+}
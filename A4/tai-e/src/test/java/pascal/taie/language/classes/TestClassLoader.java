@@ -0,0 +1,132 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.language.classes;
+
+import pascal.taie.language.annotation.AnnotationHolder;
+import pascal.taie.language.type.ClassType;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class loader of the classes built by the tests, which need not
+ * be loaded from class files.
+ */
+class TestClassLoader implements JClassLoader {
+
+    private final Map<String, JClass> classes = new LinkedHashMap<>();
+
+    /**
+     * Builds a class (or an interface) of given name and supertypes.
+     */
+    JClass newClass(String name, boolean isInterface, boolean isApplication,
+                    @Nullable JClass superclass, List<JClass> interfaces) {
+        JClass jclass = new JClass(this, name);
+        ClassType type = new ClassType(this, name);
+        jclass.build(new JClassBuilder() {
+
+            @Override
+            public void build(JClass jclass) {
+            }
+
+            @Override
+            public Set<Modifier> getModifiers() {
+                return isInterface
+                        ? Set.of(Modifier.PUBLIC, Modifier.INTERFACE, Modifier.ABSTRACT)
+                        : Set.of(Modifier.PUBLIC);
+            }
+
+            @Override
+            public String getSimpleName() {
+                return name;
+            }
+
+            @Override
+            public ClassType getClassType() {
+                return type;
+            }
+
+            @Override
+            public JClass getSuperClass() {
+                return superclass;
+            }
+
+            @Override
+            public Collection<JClass> getInterfaces() {
+                return interfaces;
+            }
+
+            @Override
+            public JClass getOuterClass() {
+                return null;
+            }
+
+            @Override
+            public Collection<JField> getDeclaredFields() {
+                return List.of();
+            }
+
+            @Override
+            public Collection<JMethod> getDeclaredMethods() {
+                return List.of();
+            }
+
+            @Override
+            public AnnotationHolder getAnnotationHolder() {
+                return AnnotationHolder.emptyHolder();
+            }
+
+            @Override
+            public boolean isApplication() {
+                return isApplication;
+            }
+        });
+        classes.put(name, jclass);
+        return jclass;
+    }
+
+    /**
+     * Adds the classes built by this loader to given hierarchy,
+     * where this loader serves as both default and bootstrap loader.
+     */
+    <H extends ClassHierarchy> H addTo(H hierarchy) {
+        hierarchy.setDefaultClassLoader(this);
+        hierarchy.setBootstrapClassLoader(this);
+        classes.values().forEach(hierarchy::addClass);
+        return hierarchy;
+    }
+
+    @Override
+    public JClass loadClass(String name) {
+        return classes.get(name);
+    }
+
+    @Override
+    public Collection<JClass> getLoadedClasses() {
+        return classes.values();
+    }
+}
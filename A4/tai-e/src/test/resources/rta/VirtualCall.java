@@ -0,0 +1,30 @@
+public class VirtualCall {
+
+    public static void main(String[] args) {
+        A a = new B();
+        a.foo();
+        instantiate();
+    }
+
+    static void instantiate() {
+        new C();
+    }
+}
+
+class A {
+    void foo() {
+    }
+}
+
+class B extends A {
+}
+
+class C extends A {
+    void foo() {
+    }
+}
+
+class D extends A {
+    void foo() {
+    }
+}
@@ -72,18 +72,7 @@ public class ConstantPropagation extends
 
     @Override
     public void meetInto(CPFact fact, CPFact target) {
-        // TODO - finish me
-
-        for(Var var:fact.keySet()){
-            if(target.get(var)!=null){
-                // 目标里面有这一个
-                target.update(var,meetValue(fact.get(var),target.get(var)));
-            }else{
-                // 目标没有这一个
-                target.update(var,fact.get(var));
-            }
-        }
-
+        target.meet(fact);
     }
 
     /**